@@ -0,0 +1,66 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import in.gilsondev.libraryapi.api.admission.AdaptiveConcurrencyLimiter;
+import in.gilsondev.libraryapi.api.admission.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of admitting a request on the fast path, from 8 threads at once: taking
+ * a token from one of 1000 client buckets, and acquiring and releasing a slot
+ * of the concurrency limiter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AdmissionControlBenchmark {
+    private static final int CLIENTS = 1000;
+
+    private RateLimiter rateLimiter;
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        // Generous enough that every request is admitted.
+        rateLimiter = new RateLimiter(1e9, 1_000_000, CLIENTS * 2);
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(1000, 1000, 1000, System.nanoTime());
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "client-" + i;
+        }
+    }
+
+    @Benchmark
+    public long rateLimit() {
+        String client = clients[ThreadLocalRandom.current().nextInt(CLIENTS)];
+        return rateLimiter.tryAcquire(client, System.nanoTime());
+    }
+
+    @Benchmark
+    public boolean concurrencyLimit() {
+        long start = System.nanoTime();
+        boolean admitted = concurrencyLimiter.tryAcquire();
+        if (admitted) {
+            long now = System.nanoTime();
+            concurrencyLimiter.release(now - start, now);
+        }
+        return admitted;
+    }
+}
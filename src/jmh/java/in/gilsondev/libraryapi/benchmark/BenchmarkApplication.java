@@ -0,0 +1,64 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import in.gilsondev.libraryapi.LibraryApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without the web server against a private in-memory H2
+ * database, so benchmarks exercise the real service and repository beans.
+ */
+final class BenchmarkApplication {
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    /**
+     * Must match the allocationSize of the book id sequence: the pooled optimizer
+     * hands out the ids right below the value it reads from the sequence.
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String databaseName, String... properties) {
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.root=warn")
+                .properties(properties)
+                .run();
+    }
+
+    /**
+     * Inserts {@code rows} books straight through JDBC; going through JPA would
+     * make seeding a million rows dominate the benchmark run. Book {@code n} has
+     * id {@code n} and ISBN {@link #isbn(long)}; the id sequence is moved past
+     * the seeded rows so books saved afterwards do not collide with them.
+     */
+    static void seedBooks(ConfigurableApplicationContext context, int rows) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        Timestamp seededAt = new Timestamp(System.currentTimeMillis());
+        for (long id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, "Title " + id, "Author " + (id % 1000), isbn(id), 0L, seededAt});
+            if (batch.size() == INSERT_BATCH_SIZE || id == rows) {
+                jdbcTemplate.batchUpdate("insert into book (id, title, author, isbn, version, updated_at)"
+                        + " values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("alter sequence book_seq restart with " + (rows + ID_ALLOCATION_SIZE));
+    }
+
+    static String isbn(long id) {
+        return String.valueOf(9780000000000L + id);
+    }
+}
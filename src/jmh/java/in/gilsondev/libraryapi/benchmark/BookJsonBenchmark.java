@@ -0,0 +1,61 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding and decoding of {@link BookDTO} with an ObjectMapper configured
+ * the way Spring MVC configures the one used by the controller.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookJsonBenchmark {
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private BookDTO bookDTO;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(BookDTO.class);
+        reader = objectMapper.readerFor(BookDTO.class);
+        bookDTO = BookDTO.builder()
+                .id(1L)
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("9780306406157")
+                .build();
+        json = writer.writeValueAsBytes(bookDTO);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(bookDTO);
+    }
+
+    @Benchmark
+    public BookDTO deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,76 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import in.gilsondev.libraryapi.api.cache.BookJsonCache;
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.api.mapper.BookMapper;
+import in.gilsondev.libraryapi.model.entities.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Body of {@code GET /api/books/{id}} written to a response buffer: mapped and
+ * serialized on every request, as the controller does by default, or copied
+ * from the {@link BookJsonCache}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookJsonCacheBenchmark {
+    private BookMapper bookMapper;
+    private ObjectWriter writer;
+    private Book book;
+    private BookJsonCache.Entry cached;
+    private ByteArrayOutputStream response;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bookMapper = new BookMapper();
+        writer = objectMapper.writerFor(BookDTO.class);
+        book = Book.builder()
+                .id(1L)
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("9780306406157")
+                .version(3L)
+                .updatedAt(Instant.now())
+                .build();
+        BookJsonCache jsonCache = new BookJsonCache(bookMapper, objectMapper, new SimpleMeterRegistry(), 10);
+        cached = jsonCache.put(book);
+        response = new ByteArrayOutputStream(256);
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream mapAndSerialize() throws IOException {
+        response.reset();
+        writer.writeValue(response, bookMapper.toDTO(book));
+        return response;
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream cached() throws IOException {
+        response.reset();
+        cached.writeTo(response);
+        return response;
+    }
+}
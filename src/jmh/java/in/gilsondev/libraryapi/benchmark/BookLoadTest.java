@@ -0,0 +1,189 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import in.gilsondev.libraryapi.LibraryApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load test comparing the thread-per-request endpoints with the
+ * {@code CompletableFuture} ones. Boots the application on a random port with a
+ * deliberately small Tomcat pool, then drives {@code GET /api/books/{id}} and
+ * {@code GET /api/async/books/{id}} from the same number of client threads and
+ * prints throughput and latency percentiles for each.
+ *
+ * <pre>
+ * ./mvnw -P benchmark test-compile exec:java@load-test
+ * </pre>
+ *
+ * Tuned through system properties: {@code load.clients} (200), {@code load.seconds}
+ * (20), {@code load.rows} (10000) and {@code load.tomcat-threads} (20).
+ */
+public final class BookLoadTest {
+    private static final int CLIENTS = Integer.getInteger("load.clients", 200);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 20);
+    private static final int ROWS = Integer.getInteger("load.rows", 10_000);
+    private static final int TOMCAT_THREADS = Integer.getInteger("load.tomcat-threads", 20);
+    private static final int WARMUP_SECONDS = 5;
+
+    private BookLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Passed as command line arguments, not default properties, so they take
+        // precedence over application.properties.
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--server.tomcat.max-threads=" + TOMCAT_THREADS,
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.devtools.restart.enabled=false",
+                        "--logging.level.root=warn",
+                        "--library.cache.enabled=false",
+                        "--library.async.enabled=true",
+                        "--library.async.queue-capacity=" + (CLIENTS * 2));
+        try {
+            BenchmarkApplication.seedBooks(context, ROWS);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            for (String path : new String[]{"/api/books/", "/api/async/books/"}) {
+                String baseUrl = "http://localhost:" + port + path;
+                run(baseUrl, WARMUP_SECONDS);
+                report(path, run(baseUrl, SECONDS));
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result run(String baseUrl, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Client> clients = new ArrayList<>(CLIENTS);
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            Client client = new Client(baseUrl, deadline, done);
+            clients.add(client);
+            new Thread(client, "load-client-" + i).start();
+        }
+        done.await();
+
+        Result result = new Result(seconds);
+        clients.forEach(result::add);
+        return result;
+    }
+
+    private static void report(String path, Result result) {
+        long[] latencies = result.sortedLatencies();
+        System.out.printf("%-18s clients=%d tomcat-threads=%d requests=%d errors=%d throughput=%.0f req/s"
+                        + " p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                path, CLIENTS, TOMCAT_THREADS, latencies.length, result.errors,
+                latencies.length / (double) result.seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static final class Client implements Runnable {
+        private final String baseUrl;
+        private final long deadline;
+        private final CountDownLatch done;
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        Client(String baseUrl, long deadline, CountDownLatch done) {
+            this.baseUrl = baseUrl;
+            this.deadline = deadline;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[4096];
+            try {
+                while (System.nanoTime() < deadline) {
+                    long id = ThreadLocalRandom.current().nextLong(1, ROWS + 1);
+                    long start = System.nanoTime();
+                    if (get(baseUrl + id, buffer)) {
+                        record(System.nanoTime() - start);
+                    } else {
+                        errors++;
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private boolean get(String url, byte[] buffer) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                int status = connection.getResponseCode();
+                InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+                if (body != null) {
+                    try (InputStream in = body) {
+                        while (in.read(buffer) != -1) {
+                            // drain so the keep-alive connection can be reused
+                        }
+                    }
+                }
+                return status == 200;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private void record(long latency) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+    }
+
+    private static final class Result {
+        private final int seconds;
+        private final List<long[]> latencies = new ArrayList<>();
+        private int total;
+        private int errors;
+
+        Result(int seconds) {
+            this.seconds = seconds;
+        }
+
+        void add(Client client) {
+            latencies.add(Arrays.copyOf(client.latencies, client.count));
+            total += client.count;
+            errors += client.errors;
+        }
+
+        long[] sortedLatencies() {
+            long[] all = new long[total];
+            int offset = 0;
+            for (long[] chunk : latencies) {
+                System.arraycopy(chunk, 0, all, offset, chunk.length);
+                offset += chunk.length;
+            }
+            Arrays.sort(all);
+            return all;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.api.mapper.BookMapper;
+import in.gilsondev.libraryapi.model.entities.Book;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflective ModelMapper conversion the controller used to do
+ * with the hand-written {@link BookMapper}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookMappingBenchmark {
+    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+    private Book book;
+    private BookDTO bookDTO;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapper();
+        book = Book.builder()
+                .id(1L)
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("123123")
+                .build();
+        bookDTO = BookDTO.builder()
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("123123")
+                .build();
+    }
+
+    @Benchmark
+    public BookDTO modelMapperToDTO() {
+        return modelMapper.map(book, BookDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO bookMapperToDTO() {
+        return bookMapper.toDTO(book);
+    }
+
+    @Benchmark
+    public Book modelMapperToEntity() {
+        return modelMapper.map(bookDTO, Book.class);
+    }
+
+    @Benchmark
+    public Book bookMapperToEntity() {
+        return bookMapper.toEntity(bookDTO);
+    }
+}
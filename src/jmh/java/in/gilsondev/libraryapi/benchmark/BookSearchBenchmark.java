@@ -0,0 +1,153 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import in.gilsondev.libraryapi.service.search.SearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a two-word search for the 20 best books, with the
+ * {@link SearchIndex} against the {@code LIKE '%word%'} scan it replaces.
+ * <p>
+ * Titles and authors are drawn from a vocabulary of 5000 made-up words, so
+ * words are shared by many books as in a real catalogue. Each invocation
+ * searches the next query of a fixed list of title words, some of them
+ * truncated or misspelled, which the scan does not find.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class BookSearchBenchmark {
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final int QUERIES = 1000;
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final int LIMIT = 20;
+    private static final String[] SYLLABLES = {
+            "ba", "ca", "da", "fe", "ga", "li", "ma", "no", "pe", "ra", "sa", "to", "vi", "lu", "mo", "ne"};
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private SearchIndex searchIndex;
+    private final List<String> queries = new ArrayList<>(QUERIES);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("search-benchmark");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        Random random = new Random(42);
+        List<String> vocabulary = new ArrayList<>(VOCABULARY_SIZE);
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + i % 3; syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary.add(word.toString());
+        }
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        Timestamp seededAt = new Timestamp(System.currentTimeMillis());
+        for (long id = 1; id <= rows; id++) {
+            String title = words(vocabulary, random, 3);
+            String author = words(vocabulary, random, 2);
+            batch.add(new Object[]{id, title, author, BenchmarkApplication.isbn(id), 0L, seededAt});
+            if (queries.size() < QUERIES && id % Math.max(1, rows / QUERIES) == 0) {
+                queries.add(query(title, author, queries.size()));
+            }
+            if (batch.size() == INSERT_BATCH_SIZE || id == rows) {
+                jdbcTemplate.batchUpdate("insert into book (id, title, author, isbn, version, updated_at)"
+                        + " values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+
+        // The application's index was built before the books were seeded.
+        searchIndex = new SearchIndex(context.getBean(BookRepository.class), "", 10_000);
+        searchIndex.afterSingletonsInstantiated();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        searchIndex.destroy();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> searchIndex() {
+        return searchIndex.search(nextQuery(), LIMIT);
+    }
+
+    @Benchmark
+    public List<Long> likeScan() {
+        String[] words = nextQuery().split(" ");
+        StringBuilder sql = new StringBuilder("select id from book where 1 = 1");
+        List<Object> arguments = new ArrayList<>(words.length * 2);
+        for (String word : words) {
+            sql.append(" and (lower(title) like ? or lower(author) like ?)");
+            arguments.add("%" + word + "%");
+            arguments.add("%" + word + "%");
+        }
+        sql.append(" limit ").append(LIMIT);
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, arguments.toArray());
+    }
+
+    private String nextQuery() {
+        String query = queries.get(next);
+        next = (next + 1) % queries.size();
+        return query;
+    }
+
+    private static String words(List<String> vocabulary, Random random, int count) {
+        StringBuilder words = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            String word = vocabulary.get(random.nextInt(vocabulary.size()));
+            words.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return words.toString();
+    }
+
+    /**
+     * A title word and an author word of the book; one query in ten has the
+     * author word cut to a prefix and one in ten has a letter of the title
+     * word doubled.
+     */
+    private static String query(String title, String author, int index) {
+        String titleWord = title.split(" ")[1].toLowerCase();
+        String authorWord = author.split(" ")[0].toLowerCase();
+        if (index % 10 == 1) {
+            authorWord = authorWord.substring(0, 3);
+        } else if (index % 10 == 2) {
+            titleWord = titleWord.substring(0, 2) + titleWord.substring(1);
+        }
+        return titleWord + " " + authorWord;
+    }
+}
@@ -0,0 +1,59 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link BookService#save(Book)} against embedded H2, including the duplicated
+ * ISBN check that runs before the insert.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookServiceBenchmark {
+    private static final int SEEDED_ROWS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private final AtomicLong nextIsbn = new AtomicLong(SEEDED_ROWS);
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("service-benchmark");
+        BenchmarkApplication.seedBooks(context, SEEDED_ROWS);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book save() {
+        Book book = Book.builder()
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn(BenchmarkApplication.isbn(nextIsbn.incrementAndGet()))
+                .build();
+        return bookService.save(book);
+    }
+}
@@ -0,0 +1,150 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching {@code java -jar} to the first successful
+ * {@code GET /api/books/{id}}, which is what matters when instances are added
+ * on a traffic spike. Each run is a fresh JVM; as soon as the port accepts
+ * requests a book is created and fetched, so lazily created beans are counted.
+ * <p>
+ * Compares the default start, the {@code production} Spring profile, and the
+ * profile with the AppCDS archive when the jar was built with
+ * {@code -P production}:
+ *
+ * <pre>
+ * ./mvnw -P production package -DskipTests
+ * ./mvnw -P benchmark test-compile exec:java@startup-test
+ * </pre>
+ *
+ * Tuned through system properties: {@code startup.runs} (5), {@code startup.java}
+ * (the running JVM), {@code startup.jar} and {@code startup.archive} (the files
+ * in {@code target}).
+ */
+public final class BookStartupTest {
+    private static final int RUNS = Integer.getInteger("startup.runs", 5);
+    private static final String JAVA = System.getProperty("startup.java",
+            System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    private static final String JAR = System.getProperty("startup.jar", "target/library-api-0.0.1-SNAPSHOT.jar");
+    private static final String ARCHIVE = System.getProperty("startup.archive", "target/library-api.jsa");
+    private static final long TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(2);
+    private static final String BOOK = "{\"title\":\"Dom Casmurro\",\"author\":\"Machado de Assis\","
+            + "\"isbn\":\"9788535910667\"}";
+
+    private BookStartupTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> production = Collections.singletonList("-Dspring.profiles.active=production");
+        List<String> productionWithArchive = Arrays.asList("-Dspring.profiles.active=production",
+                "-XX:SharedArchiveFile=" + ARCHIVE, "-Xshare:auto");
+
+        report("default", measure(Collections.emptyList()));
+        report("production", measure(production));
+        if (new File(ARCHIVE).isFile()) {
+            report("production + AppCDS", measure(productionWithArchive));
+        } else {
+            System.out.printf("production + AppCDS: skipped, %s not found%n", ARCHIVE);
+        }
+    }
+
+    private static long[] measure(List<String> jvmOptions) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            millis[run] = timeToFirstFetch(jvmOptions);
+        }
+        Arrays.sort(millis);
+        return millis;
+    }
+
+    private static long timeToFirstFetch(List<String> jvmOptions) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(JAVA);
+        command.addAll(jvmOptions);
+        command.addAll(Arrays.asList("-jar", JAR, "--server.port=" + port, "--logging.level.root=warn"));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("target/startup-test.log")))
+                .start();
+        try {
+            String location = null;
+            while (System.nanoTime() - start < TIMEOUT_NANOS) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited, see target/startup-test.log");
+                }
+                if (location == null) {
+                    location = create("http://localhost:" + port + "/api/books");
+                } else if (status(location) == 200) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                if (location == null) {
+                    Thread.sleep(10);
+                }
+            }
+            throw new IllegalStateException("No successful fetch within two minutes");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * Returns the URL of the created book, or {@code null} while the server is
+     * not accepting requests yet.
+     */
+    private static String create(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(100);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+            try (OutputStream body = connection.getOutputStream()) {
+                body.write(BOOK.getBytes(StandardCharsets.UTF_8));
+            }
+            if (connection.getResponseCode() != 201) {
+                return null;
+            }
+            byte[] response = new byte[256];
+            int length = connection.getInputStream().read(response);
+            String json = new String(response, 0, Math.max(length, 0), StandardCharsets.UTF_8);
+            String id = json.replaceAll(".*\"id\":(\\d+).*", "$1");
+            return url + "/" + id;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static int status(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            int status = connection.getResponseCode();
+            connection.getInputStream().close();
+            return status;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void report(String variant, long[] millis) {
+        System.out.printf("%-20s runs=%d  min=%dms  median=%dms  max=%dms%n", variant, millis.length,
+                millis[0], millis[millis.length / 2], millis[millis.length - 1]);
+    }
+}
@@ -0,0 +1,122 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.api.validation.BookValidator;
+import in.gilsondev.libraryapi.exception.BusinessException;
+import in.gilsondev.libraryapi.exception.InvalidBookException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of rejecting a bad book: Bean Validation followed by an exception with
+ * a stack trace, as before, against {@link BookValidator} and the stackless
+ * {@link InvalidBookException}. Exceptions are thrown {@value #STACK_DEPTH}
+ * frames deep, about the depth of a controller in a servlet request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookValidationBenchmark {
+    private static final int STACK_DEPTH = 100;
+
+    private Validator beanValidator;
+    private BookValidator bookValidator;
+    private AnnotatedBook annotatedValid;
+    private AnnotatedBook annotatedInvalid;
+    private BookDTO valid;
+    private BookDTO invalid;
+
+    @Setup
+    public void setUp() {
+        beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+        bookValidator = new BookValidator();
+        annotatedValid = new AnnotatedBook("Meu Livro", "Autor", "9780306406157");
+        annotatedInvalid = new AnnotatedBook("", "Autor", "");
+        valid = new BookDTO(null, "Meu Livro", "Autor", "9780306406157");
+        invalid = new BookDTO(null, "", "Autor", "");
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AnnotatedBook>> beanValidationAccepted() {
+        return beanValidator.validate(annotatedValid);
+    }
+
+    @Benchmark
+    public List<String> bookValidatorAccepted() {
+        return bookValidator.validate(valid);
+    }
+
+    @Benchmark
+    public Object beanValidationRejected() {
+        return atDepth(STACK_DEPTH, () -> {
+            Set<ConstraintViolation<AnnotatedBook>> violations = beanValidator.validate(annotatedInvalid);
+            return new IllegalArgumentException(violations.size() + " invalid fields");
+        });
+    }
+
+    @Benchmark
+    public Object bookValidatorRejected() {
+        return atDepth(STACK_DEPTH, () -> new InvalidBookException(bookValidator.validate(invalid)));
+    }
+
+    @Benchmark
+    public Object duplicatedIsbnWithStackTrace() {
+        return atDepth(STACK_DEPTH, () -> new RuntimeException("ISBN is already exists"));
+    }
+
+    @Benchmark
+    public Object duplicatedIsbnStackless() {
+        return atDepth(STACK_DEPTH, () -> new BusinessException("ISBN is already exists"));
+    }
+
+    private static Object atDepth(int depth, Supplier<RuntimeException> exception) {
+        if (depth > 0) {
+            return atDepth(depth - 1, exception);
+        }
+        try {
+            throw exception.get();
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    /**
+     * {@link BookDTO} with the constraints it had under Bean Validation.
+     */
+    public static class AnnotatedBook {
+        @NotEmpty
+        private final String title;
+
+        @NotEmpty
+        private final String author;
+
+        @NotEmpty
+        private final String isbn;
+
+        AnnotatedBook(String title, String author, String isbn) {
+            this.title = title;
+            this.author = author;
+            this.isbn = isbn;
+        }
+    }
+}
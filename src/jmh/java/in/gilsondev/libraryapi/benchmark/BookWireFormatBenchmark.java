@@ -0,0 +1,94 @@
+package in.gilsondev.libraryapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of one {@link BookDTO} and of an export-sized array of
+ * them in the formats {@code BookController} negotiates, with the mappers the
+ * message converters use. The payload sizes are printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookWireFormatBenchmark {
+    private static final int ARRAY_SIZE = 100;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private ObjectWriter arrayWriter;
+    private ObjectReader arrayReader;
+    private BookDTO bookDTO;
+    private BookDTO[] books;
+    private byte[] encoded;
+    private byte[] encodedArray;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = "cbor".equals(format) ? Jackson2ObjectMapperBuilder.cbor().build()
+                : "smile".equals(format) ? Jackson2ObjectMapperBuilder.smile().build()
+                : Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(BookDTO.class);
+        reader = objectMapper.readerFor(BookDTO.class);
+        arrayWriter = objectMapper.writerFor(BookDTO[].class);
+        arrayReader = objectMapper.readerFor(BookDTO[].class);
+
+        books = new BookDTO[ARRAY_SIZE];
+        for (int i = 0; i < ARRAY_SIZE; i++) {
+            books[i] = BookDTO.builder()
+                    .id(1_000_000L + i)
+                    .title("As aventuras " + i)
+                    .author("Fulano de Tal")
+                    .isbn(String.valueOf(9780306406157L + i))
+                    .build();
+        }
+        bookDTO = books[0];
+        encoded = writer.writeValueAsBytes(bookDTO);
+        encodedArray = arrayWriter.writeValueAsBytes(books);
+        System.out.printf("%n%s: %d bytes per book, %d bytes per %d books%n", format, encoded.length,
+                encodedArray.length, ARRAY_SIZE);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(bookDTO);
+    }
+
+    @Benchmark
+    public BookDTO decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    @Benchmark
+    public byte[] encodeArray() throws IOException {
+        return arrayWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public BookDTO[] decodeArray() throws IOException {
+        return arrayReader.readValue(encodedArray);
+    }
+}
@@ -1,6 +1,7 @@
 package in.gilsondev.libraryapi;
 
-import org.modelmapper.ModelMapper;
+import in.gilsondev.libraryapi.api.mapper.BookMapper;
+import in.gilsondev.libraryapi.api.validation.BookValidator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -9,8 +10,13 @@ import org.springframework.context.annotation.Bean;
 public class LibraryApiApplication {
 
     @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    public BookMapper bookMapper() {
+        return new BookMapper();
+    }
+
+    @Bean
+    public BookValidator bookValidator() {
+        return new BookValidator();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,32 @@
+package in.gilsondev.libraryapi.api;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Tells the clients of the API apart, for the rate limit, the read-your-writes
+ * pinning and the idempotency keys.
+ * <p>
+ * Clients are keyed by their remote address. With
+ * {@code library.client-header}, the value of that header is used instead when
+ * present: it must be set by a trusted gateway that overwrites whatever the
+ * client sent, since a client choosing its own value could get a fresh rate
+ * limit bucket on every request, pin the reads of other clients to the primary
+ * or replay their responses.
+ */
+@Component
+public class ClientKeyResolver {
+    private final String header;
+
+    public ClientKeyResolver(@Value("${library.client-header:}") String header) {
+        this.header = StringUtils.hasText(header) ? header : null;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String client = header == null ? null : request.getHeader(header);
+        return client != null ? client : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,118 @@
+package in.gilsondev.libraryapi.api.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the requests in flight with a limit that follows their latency, in the
+ * manner of a gradient limiter.
+ * <p>
+ * Latencies are summed over windows of at least {@link #WINDOW} and
+ * {@link #MIN_WINDOW_SAMPLES} requests. At the end of a window, its average
+ * is compared with a long-term average: while it stays within
+ * {@link #TOLERANCE} times the long-term one the limit grows by about its
+ * square root, and as requests start to queue and slow down the limit shrinks
+ * in proportion. The limit does not grow while less than half of it is used.
+ * <p>
+ * Requests only touch an {@link AtomicInteger} and two {@link LongAdder}s;
+ * the thread closing a window computes the new limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+    static final long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+    static final int MIN_WINDOW_SAMPLES = 10;
+    static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_TERM_WEIGHT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final LongAdder windowLatency = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowEnd;
+    private volatile int limit;
+    /**
+     * Most requests in flight seen in the current window, maintained without
+     * synchronization: a lost update only makes it a little lower.
+     */
+    private volatile int windowPeak;
+
+    // Guarded by this.
+    private double estimatedLimit;
+    private double longTermLatency;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long now) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min <= initial <= max limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.windowEnd = new AtomicLong(now + WINDOW);
+    }
+
+    /**
+     * Admits a request if fewer than the limit are in flight. An admitted
+     * request must call {@link #release(long, long)} once it is answered.
+     */
+    public boolean tryAcquire() {
+        int current = inflight.incrementAndGet();
+        if (current > limit) {
+            inflight.decrementAndGet();
+            return false;
+        }
+        if (current > windowPeak) {
+            windowPeak = current;
+        }
+        return true;
+    }
+
+    public void release(long latencyNanos, long now) {
+        inflight.decrementAndGet();
+        windowLatency.add(latencyNanos);
+        windowSamples.increment();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowSamples.sum() >= MIN_WINDOW_SAMPLES
+                && windowEnd.compareAndSet(end, now + WINDOW)) {
+            int peak = windowPeak;
+            windowPeak = inflight.get();
+            update(windowLatency.sumThenReset(), windowSamples.sumThenReset(), peak);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private synchronized void update(long latency, long samples, int peak) {
+        if (samples == 0) {
+            return;
+        }
+        double shortTermLatency = (double) latency / samples;
+        if (longTermLatency == 0) {
+            longTermLatency = shortTermLatency;
+        } else {
+            longTermLatency += (shortTermLatency - longTermLatency) * LONG_TERM_WEIGHT;
+        }
+        // Recovering from an overload: do not keep the slow latency as the reference.
+        if (longTermLatency > 2 * shortTermLatency) {
+            longTermLatency *= 0.9;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longTermLatency / shortTermLatency));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (target > estimatedLimit && peak * 2 < estimatedLimit) {
+            target = estimatedLimit;
+        }
+        estimatedLimit = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,135 @@
+package in.gilsondev.libraryapi.api.admission;
+
+import in.gilsondev.libraryapi.api.ClientKeyResolver;
+import in.gilsondev.libraryapi.api.resource.BookChangeController;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects requests early instead of queueing them on the Tomcat threads.
+ * <p>
+ * A client, as told apart by the {@link ClientKeyResolver}, over its
+ * {@link RateLimiter} rate gets 429 with the seconds until
+ * its next token in {@code Retry-After}. A request beyond the
+ * {@link AdaptiveConcurrencyLimiter} limit gets 503. Either limiter may be
+ * {@code null}. The latency fed to the concurrency limiter is the time spent
+ * in the rest of the chain, until an async request completes; it is mostly the
+ * time of the {@code BookService} call. Long polls of the change feed spend
+ * most of their time waiting for changes, so they are only rate limited.
+ * <p>
+ * Rejections are counted in {@code http.server.requests.rejected}, tagged
+ * with the {@code reason}; the concurrency limit and the requests in flight
+ * are published as gauges.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    static final String METRIC_NAME = "http.server.requests.rejected";
+
+    private final RateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ClientKeyResolver clientKeyResolver;
+    private final Counter rateLimited;
+    private final Counter shed;
+
+    public AdmissionControlFilter(RateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                  ClientKeyResolver clientKeyResolver, MeterRegistry registry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clientKeyResolver = clientKeyResolver;
+        this.rateLimited = registry.counter(METRIC_NAME, "reason", "rate-limit");
+        this.shed = registry.counter(METRIC_NAME, "reason", "concurrency-limit");
+        if (concurrencyLimiter != null) {
+            Gauge.builder("http.server.requests.concurrency.limit", concurrencyLimiter,
+                    AdaptiveConcurrencyLimiter::getLimit).register(registry);
+            Gauge.builder("http.server.requests.concurrency.inflight", concurrencyLimiter,
+                    AdaptiveConcurrencyLimiter::getInflight).register(registry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (rateLimiter != null) {
+            long wait = rateLimiter.tryAcquire(clientKeyResolver.resolve(request), System.nanoTime());
+            if (wait > 0) {
+                rateLimited.increment();
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER,
+                        String.valueOf((wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+                return;
+            }
+        }
+        if (concurrencyLimiter == null || isLongPoll(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            shed.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                long now = System.nanoTime();
+                concurrencyLimiter.release(now - start, now);
+            }
+        }
+    }
+
+    private static boolean isLongPoll(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return BookChangeController.PATH.equals(path);
+    }
+
+    /**
+     * Releases an async request once it is answered; the container completes
+     * it after an error or a timeout as well.
+     */
+    private final class ReleaseOnComplete implements AsyncListener {
+        private final long start;
+
+        ReleaseOnComplete(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            long now = System.nanoTime();
+            concurrencyLimiter.release(now - start, now);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
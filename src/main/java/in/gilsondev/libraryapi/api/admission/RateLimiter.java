@@ -0,0 +1,54 @@
+package in.gilsondev.libraryapi.api.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per client: up to {@code burst} requests at once, refilled at
+ * {@code permitsPerSecond}.
+ * <p>
+ * A bucket is a single {@link AtomicLong} holding the time at which it will be
+ * full again (the generic cell rate algorithm), so taking a token is one
+ * compare-and-set with no lock. Buckets live in a size-bounded cache and
+ * expire once they would be full anyway, so idle clients cost nothing.
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(double permitsPerSecond, int burst, long maximumClients) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.capacityNanos = intervalNanos * burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterAccess(Duration.ofNanos(capacityNanos))
+                .build();
+    }
+
+    /**
+     * Takes a token from the bucket of {@code client} and returns 0, or returns
+     * how many nanoseconds to wait for the next token, taking nothing.
+     */
+    public long tryAcquire(String client, long now) {
+        AtomicLong fullAt = buckets.get(client, key -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long excess = next - now - capacityNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package in.gilsondev.libraryapi.api.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.api.mapper.BookMapper;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Optional cache of the JSON body of {@code GET /api/books/{id}}, enabled with
+ * {@code library.json-cache.enabled=true}.
+ * <p>
+ * Each entry holds the UTF-8 encoded {@link BookDTO} of one version of a book
+ * in a direct buffer, outside of the heap, so a hit is written to the response
+ * without mapping or serializing anything. Entries are bound to the version
+ * they were rendered from: {@link #get(Long, Long)} ignores an entry of another
+ * version, so a book re-rendered from a stale read is corrected on the next
+ * request. Entries are invalidated by the {@link BookChangedEvent} of an update
+ * or a delete, and evicted by size.
+ */
+@Component
+@ConditionalOnProperty(name = "library.json-cache.enabled", havingValue = "true")
+public class BookJsonCache {
+    static final String CACHE_NAME = "book-json";
+
+    private final BookMapper bookMapper;
+    private final ObjectWriter bookWriter;
+    private final Cache<Long, Entry> entries;
+
+    public BookJsonCache(BookMapper bookMapper, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                         @Value("${library.json-cache.maximum-size:10000}") long maximumSize) {
+        this.bookMapper = bookMapper;
+        this.bookWriter = objectMapper.writerFor(BookDTO.class);
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME);
+    }
+
+    /**
+     * Returns the JSON of the book if it was rendered from {@code version}.
+     */
+    public Entry get(Long id, Long version) {
+        Entry entry = entries.getIfPresent(id);
+        return entry != null && Objects.equals(entry.version, version) ? entry : null;
+    }
+
+    /**
+     * Renders the book and keeps it for the next requests.
+     */
+    public Entry put(Book book) {
+        byte[] json;
+        try {
+            json = bookWriter.writeValueAsBytes(bookMapper.toDTO(book));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(json.length);
+        buffer.put(json).flip();
+        Entry entry = new Entry(book.getVersion(), book.getUpdatedAt(), buffer.asReadOnlyBuffer());
+        entries.put(book.getId(), entry);
+        return entry;
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        entries.invalidate(event.getId());
+    }
+
+    /**
+     * The JSON of one version of a book.
+     */
+    public static final class Entry {
+        private final Long version;
+        private final Instant updatedAt;
+        private final ByteBuffer json;
+
+        Entry(Long version, Instant updatedAt, ByteBuffer json) {
+            this.version = version;
+            this.updatedAt = updatedAt;
+            this.json = json;
+        }
+
+        public Long getVersion() {
+            return version;
+        }
+
+        public Instant getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public int length() {
+            return json.remaining();
+        }
+
+        /**
+         * Writes the JSON to {@code out}. Tomcat's response stream takes the
+         * buffer as it is; other streams get it through a small heap buffer.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            // A view per call, so concurrent requests do not share a position.
+            ByteBuffer view = json.duplicate();
+            if (out instanceof CoyoteOutputStream) {
+                ((CoyoteOutputStream) out).write(view);
+            } else {
+                Channels.newChannel(out).write(view);
+            }
+        }
+    }
+}
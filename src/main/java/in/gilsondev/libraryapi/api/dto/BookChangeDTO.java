@@ -0,0 +1,25 @@
+package in.gilsondev.libraryapi.api.dto;
+
+import in.gilsondev.libraryapi.model.entities.BookChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangeDTO {
+    private Long sequence;
+    private Long bookId;
+    private BookChange.Type type;
+
+    /**
+     * Version of the book after the change, or {@code null} if it was deleted.
+     */
+    private Long version;
+    private Instant changedAt;
+}
@@ -0,0 +1,22 @@
+package in.gilsondev.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangesDTO {
+    private List<BookChangeDTO> changes;
+
+    /**
+     * Value of {@code since} for the next request: the sequence of the last
+     * change returned, or the same {@code since} if there was none.
+     */
+    private long next;
+}
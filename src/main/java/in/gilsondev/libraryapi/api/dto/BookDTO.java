@@ -5,8 +5,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import javax.validation.constraints.NotEmpty;
-
 @Builder
 @Data
 @NoArgsConstructor
@@ -14,12 +12,9 @@ import javax.validation.constraints.NotEmpty;
 public class BookDTO {
     private Long id;
 
-    @NotEmpty
     private String title;
 
-    @NotEmpty
     private String author;
 
-    @NotEmpty
     private String isbn;
 }
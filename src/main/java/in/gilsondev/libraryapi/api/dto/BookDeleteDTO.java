@@ -0,0 +1,17 @@
+package in.gilsondev.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookDeleteDTO {
+    private int deleted;
+    private List<Long> missingIds;
+}
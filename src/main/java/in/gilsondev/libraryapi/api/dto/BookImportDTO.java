@@ -0,0 +1,18 @@
+package in.gilsondev.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportDTO {
+    private int imported;
+    private int rejected;
+    private List<String> duplicatedIsbns;
+}
@@ -0,0 +1,24 @@
+package in.gilsondev.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLookupDTO {
+    /**
+     * Books found, in the order their ids were requested.
+     */
+    private List<BookDTO> books;
+
+    /**
+     * Requested ids with no book, in the order they were requested.
+     */
+    private List<Long> missingIds;
+}
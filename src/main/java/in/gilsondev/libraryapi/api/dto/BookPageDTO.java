@@ -0,0 +1,22 @@
+package in.gilsondev.libraryapi.api.dto;
+
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPageDTO {
+    private List<BookSummary> books;
+
+    /**
+     * Cursor of the next page, or {@code null} on the last page.
+     */
+    private String next;
+}
@@ -0,0 +1,53 @@
+package in.gilsondev.libraryapi.api.exception;
+
+import in.gilsondev.libraryapi.exception.BusinessException;
+import in.gilsondev.libraryapi.exception.ChangesExpiredException;
+import in.gilsondev.libraryapi.exception.InvalidBookException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Error responses shared by the book controllers.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(InvalidBookException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleInvalidBook(InvalidBookException invalidBookException) {
+        return new ApiErrors(invalidBookException.getErrors());
+    }
+
+    @ExceptionHandler(BusinessException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleBusinessException(BusinessException businessException) {
+        return new ApiErrors(businessException);
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public ApiErrors handleChangesExpired(ChangesExpiredException changesExpiredException) {
+        return new ApiErrors(changesExpiredException);
+    }
+
+    /**
+     * The book was changed by another request between being read and written.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public void handleOptimisticLockingFailure() {
+    }
+
+    /**
+     * The bounded executor used by {@code AsyncBookController} is full.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleRejectedExecution() {
+    }
+}
@@ -0,0 +1,142 @@
+package in.gilsondev.libraryapi.api.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.gilsondev.libraryapi.api.ClientKeyResolver;
+import in.gilsondev.libraryapi.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Optional store of the outcome of recent requests by {@code Idempotency-Key},
+ * enabled with {@code library.idempotency.enabled=true}.
+ * <p>
+ * The first request with a key runs; a retry with the same key from the same
+ * client, as told apart by the {@link ClientKeyResolver}, gets its outcome from memory: the same response, or the same
+ * {@link BusinessException}. A retry arriving while the first request still
+ * runs waits for it, up to {@code wait-timeout}, instead of running again; past
+ * that it is answered with 409. Other failures are not kept, so the next retry
+ * runs again. Keys are held in a size-bounded cache for {@code ttl} after their
+ * first request, and are published as the {@code cache.*} metrics with the tag
+ * {@code cache=idempotency-keys}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.idempotency.enabled", havingValue = "true")
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+
+    static final String CACHE_NAME = "idempotency-keys";
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final ClientKeyResolver clientKeyResolver;
+    private final long waitTimeoutNanos;
+    private final Cache<String, Entry> entries;
+    private final Counter replayed;
+
+    public IdempotencyStore(MeterRegistry meterRegistry,
+                            ClientKeyResolver clientKeyResolver,
+                            @Value("${library.idempotency.maximum-size:100000}") long maximumSize,
+                            @Value("${library.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${library.idempotency.wait-timeout:5s}") Duration waitTimeout) {
+        this.clientKeyResolver = clientKeyResolver;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.replayed = meterRegistry.counter("http.server.requests.replayed");
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, CACHE_NAME);
+    }
+
+    /**
+     * Runs {@code action} for the first request of its client with {@code key},
+     * and returns its outcome to the later ones. {@code body} is compared with
+     * the body of the first request: a key reused for another request is
+     * answered with 422.
+     */
+    public <T> T execute(HttpServletRequest request, String key, Object body, Supplier<T> action) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = clientKeyResolver.resolve(request) + '\n' + key;
+        Entry created = new Entry(body);
+        Entry entry = entries.asMap().putIfAbsent(scopedKey, created);
+        if (entry == null) {
+            return run(scopedKey, created, action);
+        }
+        if (!Objects.equals(entry.body, body)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for another request");
+        }
+        return await(entry);
+    }
+
+    private <T> T run(String scopedKey, Entry entry, Supplier<T> action) {
+        T response;
+        try {
+            response = action.get();
+        } catch (BusinessException e) {
+            entry.outcome.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            entries.asMap().remove(scopedKey, entry);
+            entry.outcome.completeExceptionally(e);
+            throw e;
+        }
+        entry.outcome.complete(response);
+        return response;
+    }
+
+    /**
+     * Returns or rethrows the outcome of the first request; only then does the
+     * retry count as replayed.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T await(Entry entry) {
+        try {
+            T response = (T) entry.outcome.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+            replayed.increment();
+            return response;
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this " + HEADER + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the first request", e);
+        } catch (ExecutionException e) {
+            replayed.increment();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private static final class Entry {
+        private final Object body;
+        private final CompletableFuture<Object> outcome = new CompletableFuture<>();
+
+        Entry(Object body) {
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package in.gilsondev.libraryapi.api.mapper;
+
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.model.entities.Book;
+
+import java.util.Locale;
+
+/**
+ * Field-by-field conversion between {@link Book} and {@link BookDTO}.
+ * <p>
+ * Replaces the reflective ModelMapper lookup done on every request: each method
+ * allocates only the target object and copies references.
+ */
+public class BookMapper {
+
+    public BookDTO toDTO(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+
+    /**
+     * The ISBN is stored upper-cased, so an ISBN-10 ending in {@code x} and the
+     * same one ending in {@code X} are one book for the unique constraint, the
+     * {@code IsbnIndex} and the shard routing.
+     */
+    public Book toEntity(BookDTO bookDTO) {
+        if (bookDTO == null) {
+            return null;
+        }
+        return Book.builder()
+                .id(bookDTO.getId())
+                .title(bookDTO.getTitle())
+                .author(bookDTO.getAuthor())
+                .isbn(bookDTO.getIsbn() == null ? null : bookDTO.getIsbn().toUpperCase(Locale.ROOT))
+                .build();
+    }
+
+    /**
+     * Copies the fields a client is allowed to change on update. The id and the
+     * ISBN of an existing book are kept as they are.
+     */
+    public Book updateEntity(BookDTO bookDTO, Book book) {
+        book.setAuthor(bookDTO.getAuthor());
+        book.setTitle(bookDTO.getTitle());
+        return book;
+    }
+}
@@ -0,0 +1,88 @@
+package in.gilsondev.libraryapi.api.resource;
+
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.api.mapper.BookMapper;
+import in.gilsondev.libraryapi.api.validation.BookValidator;
+import in.gilsondev.libraryapi.config.AsyncExecutionConfiguration;
+import in.gilsondev.libraryapi.exception.InvalidBookException;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Same CRUD operations as {@link BookController}, enabled with
+ * {@code library.async.enabled=true}. The blocking service calls run on the
+ * bounded {@code bookJdbcExecutor}, and the servlet thread is released as soon as
+ * the handler returns, so a few container threads can keep many requests in
+ * flight.
+ */
+@RestController
+@RequestMapping("/api/async/books")
+@ConditionalOnProperty(name = "library.async.enabled", havingValue = "true")
+public class AsyncBookController {
+    private final BookService bookService;
+    private final BookMapper bookMapper;
+    private final BookValidator bookValidator;
+    private final Executor executor;
+
+    public AsyncBookController(BookService bookService, BookMapper bookMapper, BookValidator bookValidator,
+                               @Qualifier(AsyncExecutionConfiguration.BOOK_JDBC_EXECUTOR) Executor executor) {
+        this.bookService = bookService;
+        this.bookMapper = bookMapper;
+        this.bookValidator = bookValidator;
+        this.executor = executor;
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<BookDTO> fetchBook(@PathVariable Long id) {
+        return CompletableFuture.supplyAsync(() -> bookService.getById(id)
+                .map(bookMapper::toDTO)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)), executor);
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<BookDTO> create(@RequestBody BookDTO bookDTO) {
+        List<String> errors = bookValidator.validate(bookDTO);
+        if (!errors.isEmpty()) {
+            throw new InvalidBookException(errors);
+        }
+        Book book = bookMapper.toEntity(bookDTO);
+        return CompletableFuture.supplyAsync(() -> bookMapper.toDTO(bookService.save(book)), executor);
+    }
+
+    @PutMapping("/{id}")
+    public CompletableFuture<BookDTO> updateBook(@PathVariable Long id, @RequestBody BookDTO bookDTO) {
+        return CompletableFuture.supplyAsync(() -> bookService.getById(id)
+                .map(book -> bookMapper.toDTO(bookService.update(bookMapper.updateEntity(bookDTO, book))))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)), executor);
+    }
+
+    @DeleteMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Void>> deleteBook(@PathVariable Long id) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (bookService.deleteByIds(Collections.singletonList(id)).isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            return ResponseEntity.<Void>noContent().build();
+        }, executor);
+    }
+}
@@ -0,0 +1,86 @@
+package in.gilsondev.libraryapi.api.resource;
+
+import in.gilsondev.libraryapi.api.dto.BookChangeDTO;
+import in.gilsondev.libraryapi.api.dto.BookChangesDTO;
+import in.gilsondev.libraryapi.model.entities.BookChange;
+import in.gilsondev.libraryapi.service.outbox.BookChangeRelay;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Feed of the book changes recorded by the outbox, enabled with
+ * {@code library.outbox.enabled=true}, so other systems can follow the
+ * changes instead of fetching every book again.
+ * <p>
+ * {@code GET /api/books/changes?since=n} returns the changes numbered after
+ * {@code n}, in order, with the {@code since} of the next request. When there
+ * are none, the request is held until the next changes are published or
+ * {@code library.outbox.long-poll-timeout} passes, and then gets an empty list.
+ * Changes deleted after the retention period are answered with 410.
+ */
+@RestController
+@RequestMapping(BookChangeController.PATH)
+@ConditionalOnProperty(name = "library.outbox.enabled", havingValue = "true")
+public class BookChangeController {
+    public static final String PATH = "/api/books/changes";
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final BookChangeRelay relay;
+    private final long timeout;
+
+    public BookChangeController(BookChangeRelay relay,
+                                @Value("${library.outbox.long-poll-timeout:30s}") Duration timeout) {
+        this.relay = relay;
+        this.timeout = timeout.toMillis();
+    }
+
+    @GetMapping
+    public DeferredResult<BookChangesDTO> listChanges(@RequestParam(defaultValue = "0") long since,
+                                                      @RequestParam(defaultValue = "500") int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        DeferredResult<BookChangesDTO> result = new DeferredResult<>(timeout,
+                () -> new BookChangesDTO(Collections.emptyList(), since));
+        if (relay.getLastSequence() > since) {
+            result.setResult(changes(since, limit));
+            return result;
+        }
+
+        Runnable waiter = () -> {
+            try {
+                result.setResult(changes(since, limit));
+            } catch (RuntimeException e) {
+                result.setErrorResult(e);
+            }
+        };
+        result.onCompletion(() -> relay.cancel(waiter));
+        relay.await(waiter);
+        if (relay.getLastSequence() > since) {
+            // Published while registering.
+            relay.cancel(waiter);
+            waiter.run();
+        }
+        return result;
+    }
+
+    private BookChangesDTO changes(long since, int limit) {
+        List<BookChange> changes = relay.findChanges(since, limit);
+        List<BookChangeDTO> dtos = new ArrayList<>(changes.size());
+        for (BookChange change : changes) {
+            dtos.add(new BookChangeDTO(change.getSequence(), change.getBookId(), change.getType(),
+                    change.getVersion(), change.getChangedAt()));
+        }
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return new BookChangesDTO(dtos, next);
+    }
+}
@@ -1,86 +1,504 @@
 package in.gilsondev.libraryapi.api.resource;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import in.gilsondev.libraryapi.api.cache.BookJsonCache;
 import in.gilsondev.libraryapi.api.dto.BookDTO;
-import in.gilsondev.libraryapi.api.exception.ApiErrors;
-import in.gilsondev.libraryapi.exception.BusinessException;
+import in.gilsondev.libraryapi.api.dto.BookDeleteDTO;
+import in.gilsondev.libraryapi.api.dto.BookImportDTO;
+import in.gilsondev.libraryapi.api.dto.BookLookupDTO;
+import in.gilsondev.libraryapi.api.dto.BookPageDTO;
+import in.gilsondev.libraryapi.api.idempotency.IdempotencyStore;
+import in.gilsondev.libraryapi.api.mapper.BookMapper;
+import in.gilsondev.libraryapi.api.pagination.KeysetCursor;
+import in.gilsondev.libraryapi.api.validation.BookValidator;
+import in.gilsondev.libraryapi.exception.InvalidBookException;
 import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.service.BookImportResult;
 import in.gilsondev.libraryapi.service.BookService;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.validation.BindingResult;
-import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.bind.annotation.DeleteMapping;
-import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
-import javax.validation.Valid;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    /**
+     * Number of books read from the request body before they are handed to the service.
+     */
+    static final int IMPORT_BUFFER_SIZE = 1000;
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    static final int MAX_LOOKUP_SIZE = 1000;
+
+    static final int MAX_DELETE_SIZE = 10_000;
+
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader bookReader;
+    private final ObjectWriter bookWriter;
+    private final ObjectReader cborBookReader;
+    private final ObjectWriter cborBookWriter;
+    private final ObjectReader smileBookReader;
+    private final ObjectWriter smileBookWriter;
+    private final BookValidator bookValidator;
+    private final BookJsonCache jsonCache;
+    private final IdempotencyStore idempotencyStore;
 
-    public BookController(BookService bookService, ModelMapper modelMapper) {
+    public BookController(BookService bookService, BookMapper bookMapper, ObjectMapper objectMapper,
+                          BookValidator bookValidator, ObjectProvider<BookJsonCache> jsonCache,
+                          ObjectProvider<IdempotencyStore> idempotencyStore) {
         this.bookService = bookService;
-        this.modelMapper = modelMapper;
+        this.bookMapper = bookMapper;
+        this.objectMapper = objectMapper;
+        this.bookReader = objectMapper.readerFor(BookDTO.class);
+        this.bookWriter = objectMapper.writerFor(BookDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // Built like the mappers of the CBOR and Smile message converters.
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        this.cborBookReader = cborMapper.readerFor(BookDTO.class);
+        this.cborBookWriter = cborMapper.writerFor(BookDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        this.smileBookReader = smileMapper.readerFor(BookDTO.class);
+        this.smileBookWriter = smileMapper.writerFor(BookDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.bookValidator = bookValidator;
+        this.jsonCache = jsonCache.getIfAvailable();
+        this.idempotencyStore = idempotencyStore.getIfAvailable();
+    }
+
+    @GetMapping
+    public BookPageDTO listBooks(@RequestParam(required = false) String title,
+                                 @RequestParam(required = false) String author,
+                                 @RequestParam(required = false) String isbn,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long afterId;
+        try {
+            afterId = cursor == null ? 0L : KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        BookFilter filter = BookFilter.builder().title(title).author(author).isbn(isbn).build();
+        List<BookSummary> books = bookService.findBooks(filter, afterId, size + 1);
+        String next = null;
+        if (books.size() > size) {
+            books = books.subList(0, size);
+            next = KeysetCursor.encode(books.get(size - 1).getId());
+        }
+        return new BookPageDTO(books, next);
+    }
+
+    /**
+     * Fetches several books in one request, e.g. {@code GET /api/books?ids=3,1,2}.
+     */
+    @GetMapping(params = "ids")
+    public BookLookupDTO fetchBooks(@RequestParam List<Long> ids) {
+        return lookup(ids);
+    }
+
+    /**
+     * Same as {@link #fetchBooks(List)}, for id lists too long for a URL.
+     */
+    @PostMapping("/lookup")
+    public BookLookupDTO lookupBooks(@RequestBody List<Long> ids) {
+        return lookup(ids);
     }
 
+    /**
+     * Resolves all ids with a single service call and answers in the order they
+     * were requested, listing the ids that have no book. Repeated ids are
+     * answered once.
+     */
+    private BookLookupDTO lookup(List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_LOOKUP_SIZE || ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "ids must have between 1 and " + MAX_LOOKUP_SIZE + " ids");
+        }
+        Map<Long, Book> found = bookService.getByIds(ids);
+
+        List<BookDTO> books = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        Set<Long> seen = new HashSet<>(ids.size() * 4 / 3 + 1);
+        for (Long id : ids) {
+            if (!seen.add(id)) {
+                continue;
+            }
+            Book book = found.get(id);
+            if (book == null) {
+                missingIds.add(id);
+            } else {
+                books.add(bookMapper.toDTO(book));
+            }
+        }
+        return new BookLookupDTO(books, missingIds);
+    }
+
+    /**
+     * Full-text search over title and author, e.g.
+     * {@code GET /api/books/search?q=machado assis}. Books are listed from the
+     * most to the least relevant.
+     */
+    @GetMapping("/search")
+    public List<BookDTO> searchBooks(@RequestParam String q, @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Long> ids = bookService.searchBooks(q, size);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Book> found = bookService.getByIds(ids);
+
+        List<BookDTO> books = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book book = found.get(id);
+            // Deleted between the search and the lookup.
+            if (book != null) {
+                books.add(bookMapper.toDTO(book));
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Returns the book with its version as ETag and its modification time as
+     * Last-Modified. Conditional requests are checked against the version alone
+     * and answered with 304 without loading the book when it has not changed.
+     */
     @GetMapping("/{id}")
-    public BookDTO fetchBook(@PathVariable Long id) {
-        return bookService.getById(id)
-                .map( book -> modelMapper.map(book, BookDTO.class))
+    public ResponseEntity<BookDTO> fetchBook(@PathVariable Long id, WebRequest request,
+                                             HttpServletResponse response) throws IOException {
+        if (jsonCache != null && prefersJson(request)) {
+            return fetchCachedBook(id, request, response);
+        }
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            BookVersion version = bookService.getVersion(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (request.checkNotModified(etag(version.getVersion()), lastModified(version.getUpdatedAt()))) {
+                return null;
+            }
+        }
+        Book book = bookService.getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return withValidators(ResponseEntity.ok(), book).body(bookMapper.toDTO(book));
     }
 
+    /**
+     * Answers from the {@link BookJsonCache}: the current version is looked up
+     * first, and the JSON rendered from that version is copied to the response
+     * as it is. The book is only loaded, mapped and serialized on a miss.
+     */
+    private ResponseEntity<BookDTO> fetchCachedBook(Long id, WebRequest request, HttpServletResponse response)
+            throws IOException {
+        BookVersion version = bookService.getVersion(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if ((request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null)
+                && request.checkNotModified(etag(version.getVersion()), lastModified(version.getUpdatedAt()))) {
+            return null;
+        }
+        BookJsonCache.Entry json = jsonCache.get(id, version.getVersion());
+        if (json == null) {
+            Book book = bookService.getById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            json = jsonCache.put(book);
+        }
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(json.length());
+        String etag = etag(json.getVersion());
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+        if (json.getUpdatedAt() != null) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, json.getUpdatedAt().toEpochMilli());
+        }
+        json.writeTo(response.getOutputStream());
+        return null;
+    }
+
+    /**
+     * With an {@code Idempotency-Key} and the {@link IdempotencyStore}
+     * enabled, a retry of the same creation is answered with the outcome of
+     * the first request.
+     */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public BookDTO create(@RequestBody @Valid BookDTO bookDTO) {
-        Book book = modelMapper.map(bookDTO, Book.class);
+    public BookDTO create(@RequestBody BookDTO bookDTO,
+                          @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                          HttpServletRequest request) {
+        if (idempotencyStore != null && idempotencyKey != null) {
+            return idempotencyStore.execute(request, idempotencyKey, bookDTO, () -> create(bookDTO));
+        }
+        return create(bookDTO);
+    }
+
+    private BookDTO create(BookDTO bookDTO) {
+        List<String> errors = bookValidator.validate(bookDTO);
+        if (!errors.isEmpty()) {
+            throw new InvalidBookException(errors);
+        }
+        Book book = bookMapper.toEntity(bookDTO);
         book = bookService.save(book);
-        return modelMapper.map(book, BookDTO.class);
+        return bookMapper.toDTO(book);
     }
 
+    /**
+     * Imports a JSON array or a NDJSON stream of books, or a CBOR or Smile
+     * array (or sequence) of books. The body is read incrementally, so the
+     * request size does not dictate heap usage.
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    @ResponseStatus(HttpStatus.CREATED)
+    public BookImportDTO importBooks(HttpServletRequest request) throws IOException {
+        BookImportDTO report = new BookImportDTO(0, 0, new ArrayList<>());
+        List<Book> buffer = new ArrayList<>(IMPORT_BUFFER_SIZE);
+
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        ObjectReader reader = MediaType.APPLICATION_CBOR.includes(contentType) ? cborBookReader
+                : APPLICATION_SMILE.includes(contentType) ? smileBookReader
+                : bookReader;
+        try (MappingIterator<BookDTO> books = reader.readValues(request.getInputStream())) {
+            while (books.hasNext()) {
+                BookDTO bookDTO = books.next();
+                if (!bookValidator.isValid(bookDTO)) {
+                    report.setRejected(report.getRejected() + 1);
+                    continue;
+                }
+                buffer.add(bookMapper.toEntity(bookDTO));
+                if (buffer.size() == IMPORT_BUFFER_SIZE) {
+                    importBuffered(buffer, report);
+                }
+            }
+        }
+        importBuffered(buffer, report);
+        return report;
+    }
+
+    private void importBuffered(List<Book> buffer, BookImportDTO report) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        BookImportResult result = bookService.importBooks(buffer);
+        report.setImported(report.getImported() + result.getImported().size());
+        report.getDuplicatedIsbns().addAll(result.getDuplicatedIsbns());
+        buffer.clear();
+    }
+
+    /**
+     * Streams the whole catalogue as NDJSON, one book per line, straight to the
+     * response. Memory usage does not grow with the size of the table.
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            bookService.exportBooks(book -> {
+                try {
+                    bookWriter.writeValue(generator, bookMapper.toDTO(book));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Streams the whole catalogue as one CBOR array of indefinite length,
+     * written as the books are read.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_CBOR_VALUE)
+    public void exportBooksAsCbor(HttpServletResponse response) throws IOException {
+        exportArray(response, MediaType.APPLICATION_CBOR_VALUE, cborBookWriter);
+    }
+
+    /**
+     * Streams the whole catalogue as one Smile array, written as the books are
+     * read.
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_SMILE_VALUE)
+    public void exportBooksAsSmile(HttpServletResponse response) throws IOException {
+        exportArray(response, APPLICATION_SMILE_VALUE, smileBookWriter);
+    }
+
+    private void exportArray(HttpServletResponse response, String contentType, ObjectWriter writer)
+            throws IOException {
+        response.setContentType(contentType);
+        try (JsonGenerator generator = writer.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            bookService.exportBooks(book -> {
+                try {
+                    writer.writeValue(generator, bookMapper.toDTO(book));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Updates the book. With {@code If-Match}, the update is applied only if the
+     * book still has one of the given ETags, otherwise it fails with 412. The
+     * version read here travels with the update, so a change committed in
+     * between is rejected too instead of being overwritten.
+     */
     @PutMapping("/{id}")
-    public BookDTO updateBook(@PathVariable Long id, @RequestBody BookDTO bookDTO) {
-        return bookService.getById(id)
-                .map(book -> {
-                    book.setAuthor(bookDTO.getAuthor());
-                    book.setTitle(bookDTO.getTitle());
-                    book = bookService.update(book);
-                    return modelMapper.map(book, BookDTO.class);
-                })
+    public ResponseEntity<BookDTO> updateBook(@PathVariable Long id, @RequestBody BookDTO bookDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch) {
+        Book book = bookService.getById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (ifMatch != null && !matchesAny(ifMatch, etag(book.getVersion()))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        try {
+            book = bookService.update(bookMapper.updateEntity(bookDTO, book));
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch != null) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+            }
+            throw e;
+        }
+        return withValidators(ResponseEntity.ok(), book).body(bookMapper.toDTO(book));
     }
 
+    /**
+     * Marks the book as deleted without loading it first.
+     */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
-        Book book = bookService.getById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-
-        bookService.delete(book);
+        if (bookService.deleteByIds(Collections.singletonList(id)).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
         return ResponseEntity.noContent().build();
     }
 
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ApiErrors handleValidationExceptions(MethodArgumentNotValidException validException) {
-        BindingResult bindingResult = validException.getBindingResult();
-        return new ApiErrors(bindingResult);
+    /**
+     * Deletes the books with the ids of the body, a JSON array, and lists the
+     * ids that have no book.
+     */
+    @DeleteMapping
+    public BookDeleteDTO deleteBooks(@RequestBody List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_DELETE_SIZE || ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "ids must have between 1 and " + MAX_DELETE_SIZE + " ids");
+        }
+        Set<Long> deleted = new HashSet<>(bookService.deleteByIds(ids));
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (!deleted.contains(id)) {
+                missingIds.add(id);
+            }
+        }
+        return new BookDeleteDTO(deleted.size(), missingIds);
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, Book book) {
+        String etag = etag(book.getVersion());
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        if (book.getUpdatedAt() != null) {
+            builder.lastModified(book.getUpdatedAt());
+        }
+        return builder;
+    }
+
+    /**
+     * Whether the response would be JSON: the client accepts it at least as
+     * much as any other format. {@link BookJsonCache} only holds JSON.
+     */
+    private static boolean prefersJson(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return true;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        return !mediaTypes.isEmpty() && mediaTypes.get(0).includes(MediaType.APPLICATION_JSON);
+    }
+
+    private static String etag(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    private static long lastModified(Instant updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.toEpochMilli();
     }
 
-    @ExceptionHandler(BusinessException.class)
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ApiErrors handleBusinessException(BusinessException businessException) {
-        return new ApiErrors(businessException);
+    /**
+     * Strong comparison of {@code etag} with the comma-separated list of an
+     * {@code If-Match} header; {@code *} matches any existing book.
+     */
+    private static boolean matchesAny(String ifMatch, String etag) {
+        for (String candidate : ifMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
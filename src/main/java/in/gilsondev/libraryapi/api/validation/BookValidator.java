@@ -0,0 +1,105 @@
+package in.gilsondev.libraryapi.api.validation;
+
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Field-by-field checks of a {@link BookDTO} sent by a client.
+ * <p>
+ * Replaces Bean Validation on the create and import paths: a valid book is
+ * checked without allocating, and an invalid one only allocates its messages.
+ * The ISBN must be a plain ISBN-10 or ISBN-13, without separators, whose check
+ * digit matches.
+ */
+public class BookValidator {
+    static final String TITLE_EMPTY = "title must not be empty";
+    static final String AUTHOR_EMPTY = "author must not be empty";
+    static final String ISBN_EMPTY = "isbn must not be empty";
+    static final String ISBN_INVALID = "isbn must be a valid ISBN-10 or ISBN-13";
+
+    public boolean isValid(BookDTO bookDTO) {
+        return !isEmpty(bookDTO.getTitle()) && !isEmpty(bookDTO.getAuthor()) && isValidIsbn(bookDTO.getIsbn());
+    }
+
+    /**
+     * Returns the problems of {@code bookDTO}, or an empty list if it is valid.
+     */
+    public List<String> validate(BookDTO bookDTO) {
+        if (isValid(bookDTO)) {
+            return Collections.emptyList();
+        }
+        List<String> errors = new ArrayList<>(3);
+        if (isEmpty(bookDTO.getTitle())) {
+            errors.add(TITLE_EMPTY);
+        }
+        if (isEmpty(bookDTO.getAuthor())) {
+            errors.add(AUTHOR_EMPTY);
+        }
+        if (isEmpty(bookDTO.getIsbn())) {
+            errors.add(ISBN_EMPTY);
+        } else if (!isValidIsbn(bookDTO.getIsbn())) {
+            errors.add(ISBN_INVALID);
+        }
+        return errors;
+    }
+
+    public static boolean isValidIsbn(CharSequence isbn) {
+        if (isbn == null) {
+            return false;
+        }
+        switch (isbn.length()) {
+            case 10:
+                return isValidIsbn10(isbn);
+            case 13:
+                return isValidIsbn13(isbn);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The digits weighted 10 down to 1, the last one possibly {@code X} for
+     * 10, add up to a multiple of 11.
+     */
+    private static boolean isValidIsbn10(CharSequence isbn) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            int digit = isbn.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            sum += digit * (10 - i);
+        }
+        char last = isbn.charAt(9);
+        if (last == 'X' || last == 'x') {
+            sum += 10;
+        } else if (last >= '0' && last <= '9') {
+            sum += last - '0';
+        } else {
+            return false;
+        }
+        return sum % 11 == 0;
+    }
+
+    /**
+     * The digits weighted alternately 1 and 3 add up to a multiple of 10.
+     */
+    private static boolean isValidIsbn13(CharSequence isbn) {
+        int sum = 0;
+        for (int i = 0; i < 13; i++) {
+            int digit = isbn.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            sum += (i & 1) == 0 ? digit : digit * 3;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
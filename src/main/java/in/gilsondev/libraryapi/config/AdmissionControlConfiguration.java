@@ -0,0 +1,49 @@
+package in.gilsondev.libraryapi.config;
+
+import in.gilsondev.libraryapi.api.ClientKeyResolver;
+import in.gilsondev.libraryapi.api.admission.AdaptiveConcurrencyLimiter;
+import in.gilsondev.libraryapi.api.admission.AdmissionControlFilter;
+import in.gilsondev.libraryapi.api.admission.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Admission control of the {@code /api} endpoints, enabled with
+ * {@code library.rate-limit.enabled} and/or
+ * {@code library.concurrency-limit.enabled}. Actuator endpoints are not
+ * limited, so an overloaded instance can still be observed.
+ */
+@Configuration
+@ConditionalOnExpression("${library.rate-limit.enabled:false} or ${library.concurrency-limit.enabled:false}")
+public class AdmissionControlConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(Environment environment,
+                                                                                 ClientKeyResolver clientKeyResolver,
+                                                                                 MeterRegistry registry) {
+        RateLimiter rateLimiter = null;
+        if (environment.getProperty("library.rate-limit.enabled", Boolean.class, false)) {
+            rateLimiter = new RateLimiter(
+                    environment.getProperty("library.rate-limit.permits-per-second", Double.class, 100.0),
+                    environment.getProperty("library.rate-limit.burst", Integer.class, 200),
+                    environment.getProperty("library.rate-limit.maximum-clients", Long.class, 100_000L));
+        }
+        AdaptiveConcurrencyLimiter concurrencyLimiter = null;
+        if (environment.getProperty("library.concurrency-limit.enabled", Boolean.class, false)) {
+            concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                    environment.getProperty("library.concurrency-limit.initial", Integer.class, 20),
+                    environment.getProperty("library.concurrency-limit.min", Integer.class, 4),
+                    environment.getProperty("library.concurrency-limit.max", Integer.class, 200),
+                    System.nanoTime());
+        }
+
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(rateLimiter, concurrencyLimiter, clientKeyResolver, registry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
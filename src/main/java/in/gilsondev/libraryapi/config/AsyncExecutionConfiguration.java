@@ -0,0 +1,33 @@
+package in.gilsondev.libraryapi.config;
+
+import in.gilsondev.libraryapi.routing.RoutingContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor running the handlers of {@code AsyncBookController}. It is sized
+ * like the connection pool, since every task holds a JDBC connection while it
+ * runs; tasks beyond {@code queue-capacity} are rejected with 503 instead of
+ * piling up. Tasks keep the database routing of the request that submitted
+ * them.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.async.enabled", havingValue = "true")
+public class AsyncExecutionConfiguration {
+    public static final String BOOK_JDBC_EXECUTOR = "bookJdbcExecutor";
+
+    @Bean(BOOK_JDBC_EXECUTOR)
+    public ThreadPoolTaskExecutor bookJdbcExecutor(@Value("${library.async.pool-size:10}") int poolSize,
+                                                   @Value("${library.async.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("book-jdbc-");
+        executor.setTaskDecorator(RoutingContext::propagate);
+        return executor;
+    }
+}
@@ -0,0 +1,66 @@
+package in.gilsondev.libraryapi.config;
+
+import in.gilsondev.libraryapi.metrics.MethodTimingInterceptor;
+import in.gilsondev.libraryapi.metrics.QueryCountFilter;
+import in.gilsondev.libraryapi.metrics.QueryCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timers around the service, repository and mapper methods, published as
+ * {@code book.service}, {@code book.repository} and {@code book.mapper} with a
+ * {@code method} tag, plus the number of SQL statements run per request.
+ * Percentiles are configured in application.properties.
+ */
+@Configuration
+public class MetricsConfiguration {
+    private static final String SERVICE_METHODS =
+            "execution(* in.gilsondev.libraryapi.service.impl.BookServiceImpl.*(..))";
+    private static final String REPOSITORY_METHODS =
+            "execution(* in.gilsondev.libraryapi.model.repositories.BookRepository+.*(..))";
+    private static final String MAPPER_METHODS =
+            "execution(* in.gilsondev.libraryapi.api.mapper.BookMapper.*(..))";
+
+    @Bean
+    public static Advisor bookServiceTimingAdvisor(ObjectProvider<MeterRegistry> registry) {
+        return timingAdvisor(SERVICE_METHODS, new MethodTimingInterceptor(registry, "book.service"));
+    }
+
+    @Bean
+    public static Advisor bookRepositoryTimingAdvisor(ObjectProvider<MeterRegistry> registry) {
+        return timingAdvisor(REPOSITORY_METHODS, new MethodTimingInterceptor(registry, "book.repository"));
+    }
+
+    @Bean
+    public static Advisor bookMapperTimingAdvisor(ObjectProvider<MeterRegistry> registry) {
+        return timingAdvisor(MAPPER_METHODS, new MethodTimingInterceptor(registry, "book.mapper"));
+    }
+
+    @Bean
+    public QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
+
+    @Bean
+    public QueryCountFilter queryCountFilter(QueryCounter queryCounter, MeterRegistry registry) {
+        return new QueryCountFilter(queryCounter, registry);
+    }
+
+    private static Advisor timingAdvisor(String expression, MethodTimingInterceptor interceptor) {
+        AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+        advisor.setExpression(expression);
+        advisor.setAdvice(interceptor);
+        return advisor;
+    }
+}
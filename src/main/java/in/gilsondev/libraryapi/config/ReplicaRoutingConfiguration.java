@@ -0,0 +1,111 @@
+package in.gilsondev.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import in.gilsondev.libraryapi.api.ClientKeyResolver;
+import in.gilsondev.libraryapi.routing.ReadYourWritesFilter;
+import in.gilsondev.libraryapi.routing.ReplicaReadInterceptor;
+import in.gilsondev.libraryapi.routing.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replicas, enabled with {@code library.replicas.enabled=true}.
+ * <p>
+ * The {@code spring.datasource} pool stays the primary. A pool is opened for
+ * every JDBC URL of {@code library.replicas.urls}, with the same settings,
+ * credentials and size ({@code library.replicas.pool-size} overrides it), named
+ * {@code library-replica-1}, {@code -2}... in the pool metrics. The read-only
+ * {@code BookServiceImpl} methods ({@code get*}, {@code find*} and
+ * {@code exportBooks}) go to the replicas; writes, and everything outside the
+ * service such as the indexes and the outbox relay, use the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfiguration {
+    private static final String READ_METHODS =
+            "execution(* in.gilsondev.libraryapi.service.impl.BookServiceImpl.get*(..))"
+                    + " || execution(* in.gilsondev.libraryapi.service.impl.BookServiceImpl.find*(..))"
+                    + " || execution(* in.gilsondev.libraryapi.service.impl.BookServiceImpl.exportBooks(..))";
+
+    /**
+     * The pools are not beans of their own, which would make Spring Boot
+     * initialize them as the application's data source.
+     */
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                               MeterRegistry registry) {
+        HikariDataSource primaryDataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primaryDataSource));
+        primaryDataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+
+        @SuppressWarnings("unchecked")
+        List<String> urls = environment.getRequiredProperty("library.replicas.urls", List.class);
+        int poolSize = environment.getProperty("library.replicas.pool-size", Integer.class,
+                primaryDataSource.getMaximumPoolSize());
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            String name = primaryDataSource.getPoolName() + "-replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setMinimumIdle(Math.min(poolSize, primaryDataSource.getMinimumIdle()));
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.put(name, replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas,
+                environment.getProperty("library.replicas.lag-query", ""),
+                environment.getProperty("library.replicas.max-lag", Duration.class, Duration.ofSeconds(5)),
+                environment.getProperty("library.replicas.lag-check-interval", Duration.class, Duration.ofSeconds(1)),
+                registry);
+    }
+
+    /**
+     * Runs before the transaction advice, which takes the connection.
+     */
+    @Bean
+    public static Advisor replicaReadAdvisor() {
+        AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+        advisor.setExpression(READ_METHODS);
+        advisor.setAdvice(new ReplicaReadInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(Environment environment,
+                                                                             ClientKeyResolver clientKeyResolver) {
+        Duration maxLag = environment.getProperty("library.replicas.max-lag", Duration.class, Duration.ofSeconds(5));
+        Duration lagCheckInterval = environment.getProperty("library.replicas.lag-check-interval", Duration.class,
+                Duration.ofSeconds(1));
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(
+                        clientKeyResolver,
+                        // A replica used after the write was at most maxLag behind when last checked.
+                        maxLag.plus(lagCheckInterval),
+                        environment.getProperty("library.replicas.maximum-clients", Long.class, 100_000L)));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,150 @@
+package in.gilsondev.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import in.gilsondev.libraryapi.sharding.ShardRebalancer;
+import in.gilsondev.libraryapi.sharding.ShardRoutingDataSource;
+import in.gilsondev.libraryapi.sharding.ShardRoutingInterceptor;
+import in.gilsondev.libraryapi.sharding.ShardSchemaIntegrator;
+import in.gilsondev.libraryapi.sharding.ShardedRepositoryInterceptor;
+import in.gilsondev.libraryapi.sharding.Shards;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcutAdvisor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Books sharded across several databases, enabled with
+ * {@code library.sharding.enabled=true}.
+ * <p>
+ * The {@code spring.datasource} pool is the first shard, and a pool with the
+ * same settings is opened for every JDBC URL of {@code library.sharding.urls},
+ * named {@code library-shard-1}, {@code -2}... in the pool metrics. Hibernate
+ * creates or checks the schema of every shard. {@code BookServiceImpl} calls
+ * are routed by {@link ShardRoutingInterceptor}, and the whole-table queries
+ * of {@code BookRepository} are answered by all shards through
+ * {@link ShardedRepositoryInterceptor}.
+ * <p>
+ * With {@code library.sharding.rebalance=true}, the application moves the
+ * books to their shard once started and exits.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.sharding.enabled", havingValue = "true")
+public class ShardingConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(ShardingConfiguration.class);
+
+    private static final String SERVICE_METHODS =
+            "execution(* in.gilsondev.libraryapi.service.impl.BookServiceImpl.*(..))";
+    private static final String REPOSITORY_METHODS =
+            "execution(* in.gilsondev.libraryapi.model.repositories.BookRepository+.*(..))";
+    private static final String[] UNSUPPORTED = {
+            "library.replicas.enabled", "library.outbox.enabled", "library.write-behind.enabled"
+    };
+
+    public ShardingConfiguration(Environment environment) {
+        for (String feature : UNSUPPORTED) {
+            if (environment.getProperty(feature, Boolean.class, false)) {
+                throw new IllegalStateException(feature + " cannot be combined with library.sharding.enabled");
+            }
+        }
+    }
+
+    @Bean
+    public static Shards shards(Environment environment) {
+        return new Shards(1 + shardUrls(environment).size());
+    }
+
+    /**
+     * The pools are not beans of their own, which would make Spring Boot
+     * initialize them as the application's data source.
+     */
+    @Bean
+    public ShardRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                             MeterRegistry registry) {
+        HikariDataSource firstShard = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(firstShard));
+        firstShard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(firstShard);
+        for (String url : shardUrls(environment)) {
+            HikariDataSource shard = new HikariDataSource();
+            firstShard.copyStateTo(shard);
+            shard.setPoolName(firstShard.getPoolName() + "-shard-" + shards.size());
+            shard.setJdbcUrl(url);
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(Shards shards) {
+        IntegratorProvider integrators = () -> Collections.singletonList(new ShardSchemaIntegrator(shards.getCount()));
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, integrators);
+    }
+
+    /**
+     * Runs before the transaction advice, which takes the connection.
+     */
+    @Bean
+    public static Advisor shardRoutingAdvisor(Shards shards) {
+        return advisor(SERVICE_METHODS, new ShardRoutingInterceptor(shards));
+    }
+
+    @Bean
+    public static Advisor shardedRepositoryAdvisor(Shards shards) {
+        return advisor(REPOSITORY_METHODS, new ShardedRepositoryInterceptor(shards));
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRoutingDataSource dataSource, Shards shards, Environment environment) {
+        return new ShardRebalancer(dataSource, shards,
+                environment.getProperty("library.sharding.rebalance-batch-size", Integer.class, 500));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.sharding.rebalance", havingValue = "true")
+    public ApplicationRunner rebalanceShards(ShardRebalancer rebalancer, ConfigurableApplicationContext context) {
+        return arguments -> {
+            log.info("Rebalanced {} books", rebalancer.rebalance());
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+
+    private static Advisor advisor(String expression, MethodInterceptor interceptor) {
+        AspectJExpressionPointcutAdvisor advisor = new AspectJExpressionPointcutAdvisor();
+        advisor.setExpression(expression);
+        advisor.setAdvice(interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> shardUrls(Environment environment) {
+        return environment.getProperty("library.sharding.urls", List.class, Collections.emptyList());
+    }
+}
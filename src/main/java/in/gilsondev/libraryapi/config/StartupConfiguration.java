@@ -0,0 +1,61 @@
+package in.gilsondev.libraryapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Startup settings used by the {@code production} profile.
+ * <p>
+ * With {@code spring.main.lazy-initialization=true}, beans are created on first
+ * use, except the ones warming up at startup ({@link SmartInitializingSingleton}
+ * such as the ISBN and search indexes, and the write-behind recovery), which
+ * must be ready before the first request and would never be initialized
+ * otherwise.
+ * <p>
+ * {@code library.startup.exit-on-ready=true} makes the application answer one
+ * request and exit, so the build can record the classes loaded by a typical
+ * start for the AppCDS archive.
+ */
+@Configuration
+public class StartupConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(StartupConfiguration.class);
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerWarmUpBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SmartInitializingSingleton.class);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.startup.exit-on-ready", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> exitOnReady() {
+        return event -> {
+            ConfigurableApplicationContext context = event.getApplicationContext();
+            String port = context.getEnvironment().getProperty("local.server.port");
+            if (port != null) {
+                try {
+                    // Loads the classes of a book lookup; there is no book 0.
+                    HttpURLConnection connection = (HttpURLConnection)
+                            new URL("http://localhost:" + port + "/api/books/0").openConnection();
+                    log.info("Training request answered with {}", connection.getResponseCode());
+                    connection.disconnect();
+                } catch (IOException e) {
+                    log.warn("Training request failed", e);
+                }
+            }
+            System.exit(SpringApplication.exit(context));
+        };
+    }
+}
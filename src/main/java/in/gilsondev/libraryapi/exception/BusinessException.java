@@ -1,7 +1,11 @@
 package in.gilsondev.libraryapi.exception;
 
+/**
+ * A request breaking a business rule, such as a duplicated ISBN. It is an
+ * expected outcome answered with 400, so no stack trace is captured.
+ */
 public class BusinessException extends RuntimeException {
     public BusinessException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,19 @@
+package in.gilsondev.libraryapi.exception;
+
+/**
+ * The book changes a client asked for were deleted after the retention period.
+ * It has to fetch the books again and follow the changes from
+ * {@link #getFirstSequence()}.
+ */
+public class ChangesExpiredException extends BusinessException {
+    private final long firstSequence;
+
+    public ChangesExpiredException(long firstSequence) {
+        super("changes before sequence " + firstSequence + " are no longer available");
+        this.firstSequence = firstSequence;
+    }
+
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+}
@@ -0,0 +1,19 @@
+package in.gilsondev.libraryapi.exception;
+
+import java.util.List;
+
+/**
+ * A book sent by a client with missing or malformed fields.
+ */
+public class InvalidBookException extends BusinessException {
+    private final List<String> errors;
+
+    public InvalidBookException(List<String> errors) {
+        super(String.join(", ", errors));
+        this.errors = errors;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
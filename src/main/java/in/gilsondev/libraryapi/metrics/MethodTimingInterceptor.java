@@ -0,0 +1,57 @@
+package in.gilsondev.libraryapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every call of the advised bean in a timer named {@code metricName},
+ * tagged with the method name.
+ * <p>
+ * Timers are registered on the first call of each method and looked up by the
+ * {@link Method} afterwards, so a call only reads the clock twice and records a
+ * long: no tags are built and nothing is allocated on the way.
+ */
+public class MethodTimingInterceptor implements MethodInterceptor {
+    private final ObjectProvider<MeterRegistry> registry;
+    private final String metricName;
+    private final ConcurrentMap<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * The registry is resolved on the first call: advisors are created before
+     * the other beans, and resolving it eagerly would build the registry before
+     * the meter filters that configure its percentiles are applied.
+     */
+    public MethodTimingInterceptor(ObjectProvider<MeterRegistry> registry, String metricName) {
+        this.registry = registry;
+        this.metricName = metricName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Timer timer = timer(invocation.getMethod());
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Method method) {
+        Timer timer = timers.get(method);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(method, key -> Timer.builder(metricName)
+                    .tag("method", key.getName())
+                    .register(registry.getObject()));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,75 @@
+package in.gilsondev.libraryapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records how many SQL statements each request ran, in the
+ * {@code http.server.requests.queries} summary tagged like
+ * {@code http.server.requests} with the HTTP method and the URI template.
+ * <p>
+ * Only requests served on the container thread are counted: the statements of
+ * the async endpoints run on the JDBC executor.
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+    static final String METRIC_NAME = "http.server.requests.queries";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final QueryCounter queryCounter;
+    private final MeterRegistry registry;
+    /**
+     * Keyed by HTTP method, then by URI template, so the lookup uses the strings
+     * the request already holds instead of building a key.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, DistributionSummary>> summaries =
+            new ConcurrentHashMap<>();
+
+    public QueryCountFilter(QueryCounter queryCounter, MeterRegistry registry) {
+        this.queryCounter = queryCounter;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        queryCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                summary(request.getMethod(), uri(request)).record(queryCounter.get());
+            }
+        }
+    }
+
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern instanceof String ? (String) pattern : UNKNOWN_URI;
+    }
+
+    private DistributionSummary summary(String method, String uri) {
+        ConcurrentMap<String, DistributionSummary> byUri = summaries.get(method);
+        if (byUri == null) {
+            byUri = summaries.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        }
+        DistributionSummary summary = byUri.get(uri);
+        if (summary == null) {
+            summary = byUri.computeIfAbsent(uri, key -> DistributionSummary.builder(METRIC_NAME)
+                    .baseUnit("queries")
+                    .tag("method", method)
+                    .tag("uri", key)
+                    .register(registry));
+        }
+        return summary;
+    }
+}
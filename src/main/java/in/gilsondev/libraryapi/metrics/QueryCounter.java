@@ -0,0 +1,26 @@
+package in.gilsondev.libraryapi.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. Plugged
+ * into the session factory as its {@link StatementInspector}; the SQL itself is
+ * passed through unchanged.
+ */
+public class QueryCounter implements StatementInspector {
+    private final ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        count.get()[0]++;
+        return sql;
+    }
+
+    public void reset() {
+        count.get()[0] = 0;
+    }
+
+    public int get() {
+        return count.get()[0];
+    }
+}
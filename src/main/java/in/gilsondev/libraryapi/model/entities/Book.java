@@ -1,27 +1,78 @@
 package in.gilsondev.libraryapi.model.entities;
 
+import in.gilsondev.libraryapi.sharding.ShardedIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.Where;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+import java.time.Instant;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "book")
+@Table(name = "book", indexes = {
+        @Index(name = "idx_book_title", columnList = "title, id"),
+        @Index(name = "idx_book_author", columnList = "author, id"),
+        @Index(name = "idx_book_tombstone", columnList = "tombstone")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_book_isbn", columnNames = {"isbn", "tombstone"}))
+@Where(clause = "tombstone = 0")
 public class Book {
+    /**
+     * A number of the pooled {@code book_seq} sequence, with the bucket of the
+     * ISBN appended when the books are sharded.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @GenericGenerator(name = "book_seq", strategy = "in.gilsondev.libraryapi.sharding.ShardedIdGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = ShardedIdGenerator.SEQUENCE_NAME),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = ShardedIdGenerator.ALLOCATION_SIZE)
+            })
     private Long id;
     private String title;
     private String author;
     private String isbn;
+
+    /**
+     * Incremented on every update. Merging a copy loaded before the last update
+     * fails instead of overwriting it.
+     */
+    @Version
+    private Long version;
+    private Instant updatedAt;
+
+    /**
+     * 0 while the book exists, and its id once deleted. Deleted books are left
+     * out of every query on the entity until the purger removes their row, and
+     * their ISBN can be registered again, since only live books share the
+     * tombstone 0.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long tombstone;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
 }
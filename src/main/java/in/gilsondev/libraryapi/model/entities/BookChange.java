@@ -0,0 +1,62 @@
+package in.gilsondev.libraryapi.model.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Row of the outbox: a change of a book, written in the transaction that made
+ * it and published later with a sequence number.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "book_change", indexes = {
+        @Index(name = "idx_book_change_sequence", columnList = "sequence"),
+        @Index(name = "idx_book_change_changed_at", columnList = "changedAt")
+})
+public class BookChange {
+    /**
+     * Taken one at a time, so that two changes of the same book, which are
+     * serialized by its version, get ids in the order they were made, even when
+     * they come from different instances.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_change_seq")
+    @SequenceGenerator(name = "book_change_seq", sequenceName = "book_change_seq", allocationSize = 1)
+    private Long id;
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    /**
+     * Version of the book after the change, or {@code null} if it was deleted.
+     */
+    private Long version;
+    private Instant changedAt;
+
+    /**
+     * Position in the change feed, assigned by the relay once the change is
+     * committed; {@code null} until then.
+     */
+    private Long sequence;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,27 @@
+package in.gilsondev.libraryapi.model.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Single row holding the last sequence number given to a {@link BookChange}.
+ * The relay locks it while numbering, so instances relaying at the same time
+ * take turns and the numbers stay gapless and in commit order.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "book_change_cursor")
+public class BookChangeCursor {
+    public static final long ID = 1;
+
+    @Id
+    private Long id;
+    private long lastSequence;
+}
@@ -0,0 +1,19 @@
+package in.gilsondev.libraryapi.model.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read-only view of a book built straight from the query result, without a
+ * managed entity behind it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSummary {
+    private Long id;
+    private String title;
+    private String author;
+    private String isbn;
+}
@@ -0,0 +1,19 @@
+package in.gilsondev.libraryapi.model.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Version and last modification time of a book: enough to validate a
+ * conditional request without loading the book itself.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookVersion {
+    private Long version;
+    private Instant updatedAt;
+}
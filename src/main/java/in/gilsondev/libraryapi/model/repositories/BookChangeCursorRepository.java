@@ -0,0 +1,20 @@
+package in.gilsondev.libraryapi.model.repositories;
+
+import in.gilsondev.libraryapi.model.entities.BookChangeCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface BookChangeCursorRepository extends JpaRepository<BookChangeCursor, Long> {
+
+    /**
+     * Reads the cursor and locks it until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BookChangeCursor c where c.id = :id")
+    Optional<BookChangeCursor> findForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,34 @@
+package in.gilsondev.libraryapi.model.repositories;
+
+import in.gilsondev.libraryapi.model.entities.BookChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+
+    @Query("select c from BookChange c where c.sequence is null order by c.id")
+    List<BookChange> findUnrelayed(Pageable pageable);
+
+    @Query("select c from BookChange c where c.sequence > :since order by c.sequence")
+    List<BookChange> findRelayedAfter(@Param("since") long since, Pageable pageable);
+
+    @Query("select max(c.sequence) from BookChange c")
+    Long findLastSequence();
+
+    @Query("select min(c.sequence) from BookChange c")
+    Long findFirstSequence();
+
+    /**
+     * Deletes the published changes made before {@code before}. Must run inside
+     * a transaction.
+     */
+    @Modifying
+    @Query("delete from BookChange c where c.sequence is not null and c.changedAt < :before")
+    int deleteRelayedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,25 @@
+package in.gilsondev.libraryapi.model.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Optional filters for listing books. {@code title} and {@code author} match by
+ * prefix, so they can use the indexes on those columns; {@code isbn} must match
+ * exactly and {@code updatedSince} keeps the books changed at or after that
+ * instant. Null fields are ignored.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFilter {
+    private String title;
+    private String author;
+    private String isbn;
+    private Instant updatedSince;
+}
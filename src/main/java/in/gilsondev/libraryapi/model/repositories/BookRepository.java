@@ -1,8 +1,82 @@
 package in.gilsondev.libraryapi.model.repositories;
 
 import in.gilsondev.libraryapi.model.entities.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
     boolean existsByIsbn(String isbn);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    /**
+     * Scans the whole table through a forward-only cursor. Must be consumed inside
+     * a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    /**
+     * Writes the fields and the version of {@code book} straight to its row, if
+     * the stored version is at least {@code baseVersion} and older than the
+     * book's. Several updates made on top of {@code baseVersion} are applied at
+     * once this way, and applying them again changes nothing. Returns the
+     * number of rows changed. Must run inside a transaction.
+     */
+    @Modifying
+    @Query("update Book b set b.title = :#{#book.title}, b.author = :#{#book.author}, b.isbn = :#{#book.isbn},"
+            + " b.version = :#{#book.version}, b.updatedAt = :#{#book.updatedAt}"
+            + " where b.id = :#{#book.id} and b.version >= :baseVersion and b.version < :#{#book.version}"
+            + " and b.tombstone = 0")
+    int updateIfOlder(@Param("book") Book book, @Param("baseVersion") long baseVersion);
+
+    /**
+     * Locks the live books with the given ids until the end of the transaction,
+     * so concurrent deletes of the same book do not both report it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id in :ids")
+    List<Book> findAllForDelete(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Marks the books as deleted, leaving their rows to the purger. Must run
+     * inside a transaction.
+     */
+    @Modifying
+    @Query("update Book b set b.tombstone = b.id, b.version = b.version + 1, b.updatedAt = :now"
+            + " where b.id in :ids and b.tombstone = 0")
+    int markDeleted(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    /**
+     * Ids of deleted books whose rows are still there, in id order. Native, as
+     * the entity queries never see them.
+     */
+    @Query(value = "select id from book where tombstone > 0 order by id", nativeQuery = true)
+    List<Number> findDeletedIds(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from book where id in :ids and tombstone > 0", nativeQuery = true)
+    int purgeDeleted(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,28 @@
+package in.gilsondev.libraryapi.model.repositories;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BookRepositoryCustom {
+    /**
+     * Removes the book from the current persistence context, so long scans over
+     * the table do not keep every loaded entity reachable.
+     */
+    void detach(Book book);
+
+    /**
+     * Returns up to {@code limit} books matching {@code filter} with id greater
+     * than {@code afterId}, ordered by id. Seeking by id instead of skipping rows
+     * keeps deep pages as cheap as the first one.
+     */
+    List<BookSummary> findSummaries(BookFilter filter, long afterId, int limit);
+
+    /**
+     * Reads only the version columns of the book.
+     */
+    Optional<BookVersion> findVersion(Long id);
+}
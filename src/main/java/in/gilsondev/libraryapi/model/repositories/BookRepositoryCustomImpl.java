@@ -0,0 +1,84 @@
+package in.gilsondev.libraryapi.model.repositories;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    private static final char LIKE_ESCAPE = '!';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void detach(Book book) {
+        entityManager.detach(book);
+    }
+
+    @Override
+    public List<BookSummary> findSummaries(BookFilter filter, long afterId, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<Book> book = query.from(Book.class);
+
+        List<Predicate> predicates = new ArrayList<>(4);
+        predicates.add(builder.greaterThan(book.get("id"), afterId));
+        if (filter.getTitle() != null) {
+            predicates.add(builder.like(book.get("title"), escapeLike(filter.getTitle()) + "%", LIKE_ESCAPE));
+        }
+        if (filter.getAuthor() != null) {
+            predicates.add(builder.like(book.get("author"), escapeLike(filter.getAuthor()) + "%", LIKE_ESCAPE));
+        }
+        if (filter.getIsbn() != null) {
+            predicates.add(builder.equal(book.get("isbn"), filter.getIsbn()));
+        }
+        if (filter.getUpdatedSince() != null) {
+            predicates.add(builder.greaterThanOrEqualTo(book.get("updatedAt"), filter.getUpdatedSince()));
+        }
+
+        // Columns are selected as a tuple: HQL cannot parse a constructor expression
+        // naming BookSummary because its package starts with the "in" keyword.
+        query.multiselect(book.get("id"), book.get("title"), book.get("author"), book.get("isbn"))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(builder.asc(book.get("id")));
+
+        List<Object[]> rows = entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+        List<BookSummary> summaries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            summaries.add(new BookSummary((Long) row[0], (String) row[1], (String) row[2], (String) row[3]));
+        }
+        return summaries;
+    }
+
+    @Override
+    public Optional<BookVersion> findVersion(Long id) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+        Root<Book> book = query.from(Book.class);
+        query.multiselect(book.get("version"), book.get("updatedAt"))
+                .where(builder.equal(book.get("id"), id));
+
+        return entityManager.createQuery(query)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .map(row -> new BookVersion((Long) row[0], (Instant) row[1]));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,61 @@
+package in.gilsondev.libraryapi.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.gilsondev.libraryapi.api.ClientKeyResolver;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Pins requests to the primary database when a replica could answer them with
+ * data older than what the client has seen.
+ * <p>
+ * Requests changing books are pinned as a whole, so the book they read before
+ * writing carries the current version. The reads of a client are pinned as
+ * well for {@code window} after its last write, enough for any replica still
+ * in use to have applied it. Clients, as told apart by the
+ * {@link ClientKeyResolver}, are remembered by this instance only.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private final ClientKeyResolver clientKeyResolver;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesFilter(ClientKeyResolver clientKeyResolver, Duration window, long maximumClients) {
+        this.clientKeyResolver = clientKeyResolver;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumClients)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String client = clientKeyResolver.resolve(request);
+        boolean write = isWrite(request.getMethod());
+        if (write) {
+            // Before the response is sent, so the next request of the client finds it.
+            recentWriters.put(client, Boolean.TRUE);
+        } else if (recentWriters.getIfPresent(client) == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RoutingContext.pinToPrimary();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RoutingContext.clear();
+        }
+    }
+
+    private static boolean isWrite(String method) {
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+}
@@ -0,0 +1,24 @@
+package in.gilsondev.libraryapi.routing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the statements of a read-only service method to a replica. Calls made
+ * inside a transaction keep its connection, which is on the primary.
+ */
+public class ReplicaReadInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || !RoutingContext.onReplica()) {
+            return invocation.proceed();
+        }
+        try {
+            return invocation.proceed();
+        } finally {
+            RoutingContext.clear();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package in.gilsondev.libraryapi.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source handing out connections to the primary database, or to one of
+ * the read replicas for {@link RoutingContext#isReplicaRead() replica reads}.
+ * <p>
+ * Replicas take turns, skipping the unavailable ones. Every
+ * {@code lagCheckInterval}, each replica runs {@code lagQuery}, which returns
+ * how many seconds it is behind the primary; one that is more than
+ * {@code maxLag} behind, or fails to answer, is left out until a later check
+ * finds it caught up. Without a lag query, replicas are only checked to be
+ * reachable. When no replica is available, reads go to the primary and are
+ * counted in {@code db.replica.fallbacks}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final int LAG_QUERY_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final long maxLagNanos;
+    private final Duration lagCheckInterval;
+    private final Counter fallbacks;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService checker;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, String lagQuery,
+                                    Duration maxLag, Duration lagCheckInterval, MeterRegistry registry) {
+        this.primary = primary;
+        this.lagQuery = lagQuery == null || lagQuery.isEmpty() ? null : lagQuery;
+        this.maxLagNanos = maxLag.toNanos();
+        this.lagCheckInterval = lagCheckInterval;
+        this.fallbacks = registry.counter("db.replica.fallbacks");
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("db.replica.lag", replica, r -> r.lagNanos / 1e9)
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(registry);
+        });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (RoutingContext.isReplicaRead()) {
+            Connection connection = replicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Always the primary: the credentials are meant for it, not for the
+     * replica pools.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Measures the lag of every replica and updates which ones are used.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.available;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                replica.lagNanos = lagQuery == null ? 0 : measureLag(connection);
+                replica.available = replica.lagNanos <= maxLagNanos;
+            } catch (SQLException | RuntimeException e) {
+                replica.available = false;
+                log.debug("Could not check replica {}", replica.name, e);
+            }
+            if (wasAvailable != replica.available) {
+                log.warn("Replica {} is {}", replica.name, replica.available ? "back in use"
+                        : "left out, " + replica.lagNanos / 1_000_000 + " ms behind or unreachable");
+            }
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        checkReplicas();
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = lagCheckInterval.toMillis();
+        checker.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+    }
+
+    private Connection replicaConnection() {
+        int count = replicas.size();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, count));
+            if (!replica.available) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                // Until the next check finds it back.
+                replica.available = false;
+                log.warn("Replica {} is left out, could not connect", replica.name, e);
+            }
+        }
+        fallbacks.increment();
+        return null;
+    }
+
+    private long measureLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(LAG_QUERY_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                double seconds = resultSet.next() ? resultSet.getDouble(1) : 0;
+                return (long) (Math.max(seconds, 0) * 1e9);
+            }
+        }
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean available = true;
+        volatile long lagNanos;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
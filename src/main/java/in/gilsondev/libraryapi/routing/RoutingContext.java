@@ -0,0 +1,69 @@
+package in.gilsondev.libraryapi.routing;
+
+/**
+ * Where the statements of the current thread go: the primary database unless
+ * a read-only {@code BookService} call is {@link #onReplica() running}, and
+ * always the primary once the request is {@link #pinToPrimary() pinned} to it.
+ */
+public final class RoutingContext {
+    private static final ThreadLocal<Route> ROUTE = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    enum Route {
+        REPLICA, PRIMARY
+    }
+
+    public static boolean isReplicaRead() {
+        return ROUTE.get() == Route.REPLICA;
+    }
+
+    /**
+     * Sends the reads of this thread to the primary until {@link #clear()},
+     * even inside read-only calls.
+     */
+    public static void pinToPrimary() {
+        ROUTE.set(Route.PRIMARY);
+    }
+
+    public static void clear() {
+        ROUTE.remove();
+    }
+
+    /**
+     * Lets the current read-only call go to a replica, unless the thread is
+     * already routed. Returns whether the caller must {@link #clear()} it.
+     */
+    static boolean onReplica() {
+        if (ROUTE.get() != null) {
+            return false;
+        }
+        ROUTE.set(Route.REPLICA);
+        return true;
+    }
+
+    /**
+     * Wraps {@code task} to run with the route of the calling thread, for work
+     * handed over to an executor.
+     */
+    public static Runnable propagate(Runnable task) {
+        Route route = ROUTE.get();
+        if (route == null) {
+            return task;
+        }
+        return () -> {
+            Route previous = ROUTE.get();
+            ROUTE.set(route);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    ROUTE.remove();
+                } else {
+                    ROUTE.set(previous);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package in.gilsondev.libraryapi.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by the {@link BookService} after a book was updated or deleted, for
+ * the caches kept outside of it. Changes made by other instances are published
+ * again locally by the {@code BookInvalidationBus}, marked as remote.
+ */
+@Getter
+@AllArgsConstructor
+public class BookChangedEvent {
+    private final Long id;
+    /**
+     * Version of the book after the change, or {@code null} if it was deleted.
+     */
+    private final Long version;
+    private final boolean remote;
+
+    public BookChangedEvent(Long id, Long version) {
+        this(id, version, false);
+    }
+}
@@ -0,0 +1,14 @@
+package in.gilsondev.libraryapi.service;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class BookImportResult {
+    private final List<Book> imported;
+    private final List<String> duplicatedIsbns;
+}
@@ -1,15 +1,72 @@
 package in.gilsondev.libraryapi.service;
 
 import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     Book save(Book book);
 
     Optional<Book> getById(Long id);
 
+    /**
+     * Loads the books with the given ids in as few queries as possible. Ids with
+     * no book are left out of the returned map.
+     */
+    Map<Long, Book> getByIds(Collection<Long> ids);
+
+    /**
+     * Returns the version of the book without loading it, to answer conditional
+     * requests.
+     */
+    Optional<BookVersion> getVersion(Long id);
+
+    /**
+     * Marks the book as deleted. It disappears from every read at once, and its
+     * row is removed later by the purger.
+     */
     void delete(Book book);
 
+    /**
+     * Deletes the books with the given ids like {@link #delete(Book)}, in a few
+     * statements per batch of ids, and returns the ids of the books that
+     * existed.
+     */
+    List<Long> deleteByIds(Collection<Long> ids);
+
     Book update(Book book);
+
+    /**
+     * Saves the books whose ISBN is not registered yet. ISBNs that already exist,
+     * or that repeat inside {@code books}, are reported instead of failing the
+     * whole import. If another request stores one of the ISBNs while the import
+     * runs, the whole batch is rejected.
+     */
+    BookImportResult importBooks(List<Book> books);
+
+    /**
+     * Hands every book to {@code consumer}, in id order, without loading the
+     * table into memory. Books are detached once consumed.
+     */
+    void exportBooks(Consumer<Book> consumer);
+
+    /**
+     * Lists books matching {@code filter} ordered by id, starting right after
+     * {@code afterId}.
+     */
+    List<BookSummary> findBooks(BookFilter filter, long afterId, int limit);
+
+    /**
+     * Returns the ids of the books whose title and author contain every word of
+     * {@code query}, most relevant first. Words also match by prefix and with
+     * small typos.
+     */
+    List<Long> searchBooks(String query, int limit);
 }
@@ -3,40 +3,274 @@ package in.gilsondev.libraryapi.service.impl;
 import in.gilsondev.libraryapi.exception.BusinessException;
 import in.gilsondev.libraryapi.model.repositories.BookRepository;
 import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.entities.BookChange;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.service.BookChangedEvent;
+import in.gilsondev.libraryapi.service.BookImportResult;
 import in.gilsondev.libraryapi.service.BookService;
+import in.gilsondev.libraryapi.service.index.IsbnIndex;
+import in.gilsondev.libraryapi.service.outbox.BookOutbox;
+import in.gilsondev.libraryapi.service.search.SearchIndex;
+import in.gilsondev.libraryapi.service.writebehind.BookWriteBehind;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Writes go through the {@link BookOutbox} in the same transaction, and the
+ * {@link BookChangedEvent}s they publish reach their listeners once it is
+ * committed.
+ */
 @Service
 public class BookServiceImpl implements BookService {
+    /**
+     * Upper bound of ISBNs sent in a single {@code IN} clause when checking an import.
+     */
+    static final int ISBN_QUERY_CHUNK_SIZE = 500;
+
+    /**
+     * Upper bound of ids sent in a single {@code IN} clause by {@link #getByIds(Collection)}.
+     */
+    static final int ID_QUERY_CHUNK_SIZE = 500;
+
+    static final String DUPLICATED_ISBN_MESSAGE = "ISBN is already exists";
 
     private final BookRepository repository;
+    private final IsbnIndex isbnIndex;
+    private final SearchIndex searchIndex;
+    private final BookWriteBehind writeBehind;
+    private final BookOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, IsbnIndex isbnIndex, SearchIndex searchIndex,
+                           BookWriteBehind writeBehind, BookOutbox outbox, PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
+        this.isbnIndex = isbnIndex;
+        this.searchIndex = searchIndex;
+        this.writeBehind = writeBehind;
+        this.outbox = outbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Reserves the ISBN in the {@link IsbnIndex} before inserting. A new ISBN
+     * goes straight to the insert; an indexed one is checked against the
+     * database first, since the entry may be stale. Two concurrent requests for
+     * the same ISBN are settled by the unique constraint on {@code book.isbn}.
+     */
     @Override
     public Book save(Book book) {
-        if(repository.existsByIsbn(book.getIsbn())) {
-            throw new BusinessException("ISBN is already exists");
+        String isbn = book.getIsbn();
+        if (!isbnIndex.reserve(isbn) && repository.existsByIsbn(isbn)) {
+            throw new BusinessException(DUPLICATED_ISBN_MESSAGE);
+        }
+        Book saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                Book inserted = repository.save(book);
+                outbox.append(BookChange.Type.CREATED, inserted);
+                // Inside the try, so a duplicated ISBN is caught here.
+                repository.flush();
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Someone else stored this ISBN first, so the index entry is right.
+            throw new BusinessException(DUPLICATED_ISBN_MESSAGE);
+        } catch (RuntimeException e) {
+            isbnIndex.release(isbn);
+            throw e;
         }
-        return repository.save(book);
+        searchIndex.index(saved);
+        return saved;
     }
 
     @Override
     public Optional<Book> getById(Long id) {
-        return Optional.empty();
+        Optional<Book> updated = writeBehind.get(id);
+        return updated.isPresent() ? updated : repository.findById(id);
+    }
+
+    @Override
+    public Map<Long, Book> getByIds(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, Book> books = new HashMap<>(distinctIds.size() * 4 / 3 + 1);
+        for (int from = 0; from < distinctIds.size(); from += ID_QUERY_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + ID_QUERY_CHUNK_SIZE, distinctIds.size()));
+            for (Book book : repository.findAllById(chunk)) {
+                books.put(book.getId(), book);
+            }
+        }
+        if (writeBehind.isEnabled()) {
+            for (Long id : distinctIds) {
+                writeBehind.get(id).ifPresent(book -> books.put(id, book));
+            }
+        }
+        return books;
+    }
+
+    @Override
+    public Optional<BookVersion> getVersion(Long id) {
+        Optional<Book> updated = writeBehind.get(id);
+        if (updated.isPresent()) {
+            return updated.map(book -> new BookVersion(book.getVersion(), book.getUpdatedAt()));
+        }
+        return repository.findVersion(id);
     }
 
     @Override
     public void delete(Book book) {
+        if (book == null || book.getId() == null) {
+            throw new IllegalArgumentException("Book id cannot be null");
+        }
+        deleteByIds(Collections.singletonList(book.getId()));
+    }
 
+    /**
+     * Each batch of {@value #ID_QUERY_CHUNK_SIZE} ids is deleted in its own
+     * transaction: the live books are locked and loaded, marked with their
+     * tombstone in one update, and recorded in the outbox.
+     */
+    @Override
+    public List<Long> deleteByIds(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Long> deletedIds = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += ID_QUERY_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + ID_QUERY_CHUNK_SIZE, distinctIds.size()));
+            List<Book> deleted = transactionTemplate.execute(status -> {
+                if (writeBehind.isEnabled()) {
+                    // The books may carry versions that are not written yet.
+                    chunk.forEach(writeBehind::discard);
+                }
+                List<Book> books = repository.findAllForDelete(chunk);
+                if (books.isEmpty()) {
+                    return books;
+                }
+                List<Long> found = new ArrayList<>(books.size());
+                books.forEach(book -> found.add(book.getId()));
+                repository.markDeleted(found, Instant.now());
+                outbox.appendAll(BookChange.Type.DELETED, books);
+                return books;
+            });
+            for (Book book : deleted) {
+                isbnIndex.release(book.getIsbn());
+                searchIndex.remove(book.getId());
+                eventPublisher.publishEvent(new BookChangedEvent(book.getId(), null));
+                deletedIds.add(book.getId());
+            }
+        }
+        return deletedIds;
     }
 
+    /**
+     * With {@link BookWriteBehind} enabled, the update returns once it is logged
+     * and is written to the database later, coalesced with the next updates,
+     * together with its entry in the outbox.
+     */
     @Override
     public Book update(Book book) {
-        return null;
+        if (book == null || book.getId() == null) {
+            throw new IllegalArgumentException("Book id cannot be null");
+        }
+        Book updated = writeBehind.isEnabled() ? writeBehind.update(book) : transactionTemplate.execute(status -> {
+            Book merged = repository.save(book);
+            // Sets the new version and timestamp.
+            repository.flush();
+            outbox.append(BookChange.Type.UPDATED, merged);
+            return merged;
+        });
+        searchIndex.index(updated);
+        eventPublisher.publishEvent(new BookChangedEvent(updated.getId(), updated.getVersion()));
+        return updated;
+    }
+
+    @Override
+    public BookImportResult importBooks(List<Book> books) {
+        Map<String, Book> booksByIsbn = new LinkedHashMap<>();
+        List<String> duplicatedIsbns = new ArrayList<>();
+        for (Book book : books) {
+            if (booksByIsbn.putIfAbsent(book.getIsbn(), book) != null) {
+                duplicatedIsbns.add(book.getIsbn());
+            }
+        }
+
+        List<String> reserved = new ArrayList<>(booksByIsbn.size());
+        List<String> indexed = new ArrayList<>();
+        for (String isbn : booksByIsbn.keySet()) {
+            if (isbnIndex.reserve(isbn)) {
+                reserved.add(isbn);
+            } else {
+                indexed.add(isbn);
+            }
+        }
+
+        for (int from = 0; from < indexed.size(); from += ISBN_QUERY_CHUNK_SIZE) {
+            List<String> chunk = indexed.subList(from, Math.min(from + ISBN_QUERY_CHUNK_SIZE, indexed.size()));
+            for (String existingIsbn : repository.findExistingIsbns(chunk)) {
+                booksByIsbn.remove(existingIsbn);
+                duplicatedIsbns.add(existingIsbn);
+            }
+        }
+
+        if (booksByIsbn.isEmpty()) {
+            return new BookImportResult(new ArrayList<>(), duplicatedIsbns);
+        }
+        try {
+            List<Book> imported = transactionTemplate.execute(status -> {
+                List<Book> inserted = repository.saveAll(new ArrayList<>(booksByIsbn.values()));
+                outbox.appendAll(BookChange.Type.CREATED, inserted);
+                repository.flush();
+                return inserted;
+            });
+            searchIndex.indexAll(imported);
+            return new BookImportResult(imported, duplicatedIsbns);
+        } catch (DataIntegrityViolationException e) {
+            reserved.forEach(isbnIndex::release);
+            throw new BusinessException(DUPLICATED_ISBN_MESSAGE);
+        } catch (RuntimeException e) {
+            reserved.forEach(isbnIndex::release);
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(Consumer<Book> consumer) {
+        try (Stream<Book> books = repository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                repository.detach(book);
+            });
+        }
+    }
+
+    @Override
+    public List<BookSummary> findBooks(BookFilter filter, long afterId, int limit) {
+        return repository.findSummaries(filter, afterId, limit);
+    }
+
+    @Override
+    public List<Long> searchBooks(String query, int limit) {
+        return searchIndex.search(query, limit);
     }
 }
@@ -0,0 +1,226 @@
+package in.gilsondev.libraryapi.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.service.BookChangedEvent;
+import in.gilsondev.libraryapi.service.BookImportResult;
+import in.gilsondev.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of {@link BookServiceImpl} for {@link #getById(Long)}.
+ * <p>
+ * Entries are evicted by size (Caffeine's W-TinyLFU policy) and by age, and are
+ * invalidated after every write has been committed by the delegate. Caffeine
+ * loads a key atomically, and an invalidation of that key waits for the load in
+ * progress, so a lookup that read the row before a delete cannot put the
+ * deleted book back in the cache afterwards. Missing books are not cached.
+ * <p>
+ * {@link #getByIds(Collection)} serves the cached books and loads all the others
+ * with one call to the delegate. That bulk load is not atomic per key, so its
+ * results are only cached if no write was invalidated while it ran.
+ * <p>
+ * Callers get a copy of the cached book, so changing it (as the update endpoint
+ * does) never affects what other requests see.
+ * <p>
+ * {@link #getVersion(Long)} answers from the cached book when there is one, and
+ * otherwise from a second cache holding only versions, so polling clients with
+ * an up-to-date copy never load the book.
+ * <p>
+ * Changes made by other instances arrive as remote {@link BookChangedEvent}s
+ * and are invalidated the same way. Each change also leaves a version stamp,
+ * the lowest version of the book that may be cached (any version after a
+ * delete), kept as long as cached entries live: a lookup answered with an
+ * older version, for example by a database replica that has not caught up yet,
+ * is returned but not cached.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "library.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingBookService implements BookService {
+    static final String CACHE_NAME = "books";
+    static final String VERSION_CACHE_NAME = "book-versions";
+
+    private final BookService delegate;
+    private final Cache<Long, Book> books;
+    private final Cache<Long, BookVersion> versions;
+    private final Cache<Long, Long> minimumVersions;
+    /**
+     * Incremented before every invalidation.
+     */
+    private final AtomicLong writes = new AtomicLong();
+
+    public CachingBookService(@Qualifier("bookServiceImpl") BookService delegate,
+                              MeterRegistry meterRegistry,
+                              @Value("${library.cache.maximum-size:10000}") long maximumSize,
+                              @Value("${library.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.books = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.minimumVersions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, books, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, VERSION_CACHE_NAME);
+    }
+
+    @Override
+    public Book save(Book book) {
+        Book saved = delegate.save(book);
+        invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Optional<Book> getById(Long id) {
+        Book[] loaded = new Book[1];
+        Book book = books.get(id, key -> {
+            loaded[0] = delegate.getById(key).orElse(null);
+            return loaded[0] != null && isCurrent(key, loaded[0].getVersion()) ? loaded[0] : null;
+        });
+        return Optional.ofNullable(book != null ? book : loaded[0]).map(this::copy);
+    }
+
+    @Override
+    public Map<Long, Book> getByIds(Collection<Long> ids) {
+        Map<Long, Book> present = books.getAllPresent(ids);
+        Map<Long, Book> found = new HashMap<>(ids.size() * 4 / 3 + 1);
+        present.forEach((id, book) -> found.put(id, copy(book)));
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (!present.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        long writesBeforeLoad = writes.get();
+        delegate.getByIds(missing).forEach((id, book) -> {
+            // Checked under the entry's lock: an invalidation either comes after
+            // this put and removes it, or has already bumped the counter.
+            books.asMap().compute(id, (key, cached) ->
+                    cached == null && writes.get() == writesBeforeLoad && isCurrent(key, book.getVersion())
+                            ? book : cached);
+            found.put(id, copy(book));
+        });
+        return found;
+    }
+
+    @Override
+    public Optional<BookVersion> getVersion(Long id) {
+        Book book = books.getIfPresent(id);
+        if (book != null) {
+            return Optional.of(new BookVersion(book.getVersion(), book.getUpdatedAt()));
+        }
+        BookVersion[] loaded = new BookVersion[1];
+        BookVersion version = versions.get(id, key -> {
+            loaded[0] = delegate.getVersion(key).orElse(null);
+            return loaded[0] != null && isCurrent(key, loaded[0].getVersion()) ? loaded[0] : null;
+        });
+        return Optional.ofNullable(version != null ? version : loaded[0]);
+    }
+
+    @Override
+    public void delete(Book book) {
+        delegate.delete(book);
+        invalidate(book.getId());
+    }
+
+    @Override
+    public List<Long> deleteByIds(Collection<Long> ids) {
+        List<Long> deleted = delegate.deleteByIds(ids);
+        deleted.forEach(this::invalidate);
+        return deleted;
+    }
+
+    @Override
+    public Book update(Book book) {
+        Book updated = delegate.update(book);
+        invalidate(book.getId());
+        return updated;
+    }
+
+    @Override
+    public BookImportResult importBooks(List<Book> books) {
+        return delegate.importBooks(books);
+    }
+
+    @Override
+    public void exportBooks(Consumer<Book> consumer) {
+        delegate.exportBooks(consumer);
+    }
+
+    @Override
+    public List<BookSummary> findBooks(BookFilter filter, long afterId, int limit) {
+        return delegate.findBooks(filter, afterId, limit);
+    }
+
+    @Override
+    public List<Long> searchBooks(String query, int limit) {
+        return delegate.searchBooks(query, limit);
+    }
+
+    /**
+     * Handles the changes of other instances, and stamps the local ones.
+     */
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        Long id = event.getId();
+        if (id == null) {
+            return;
+        }
+        long minimumVersion = event.getVersion() != null ? event.getVersion() : Long.MAX_VALUE;
+        // Stamps may arrive out of order; keep the highest.
+        minimumVersions.asMap().merge(id, minimumVersion, Math::max);
+        invalidate(id);
+    }
+
+    private boolean isCurrent(Long id, Long version) {
+        Long minimumVersion = minimumVersions.getIfPresent(id);
+        return minimumVersion == null || version != null && version >= minimumVersion;
+    }
+
+    private void invalidate(Long id) {
+        if (id != null) {
+            writes.incrementAndGet();
+            books.invalidate(id);
+            versions.invalidate(id);
+        }
+    }
+
+    private Book copy(Book book) {
+        return book.toBuilder().build();
+    }
+}
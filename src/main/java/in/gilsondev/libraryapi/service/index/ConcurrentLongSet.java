@@ -0,0 +1,172 @@
+package in.gilsondev.libraryapi.service.index;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Set of positive {@code long} keys stored in a single open-addressing table
+ * with linear probing, so no object is allocated per key.
+ * <p>
+ * {@link #add(long)} and {@link #remove(long)} claim slots with a CAS and run
+ * concurrently with each other. Removed keys leave a tombstone; freed slots are
+ * never reused in place, which is what keeps a key from being inserted twice by
+ * two racing threads: both probe the same sequence and race for the same first
+ * empty slot. Tombstones are dropped when the table is rebuilt, which is the only
+ * operation taking the exclusive lock.
+ */
+public class ConcurrentLongSet {
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = -1L;
+    private static final int MIN_CAPACITY = 16;
+
+    private final StampedLock resizeLock = new StampedLock();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger usedSlots = new AtomicInteger();
+    private volatile AtomicLongArray table;
+
+    public ConcurrentLongSet(int expectedSize) {
+        this.table = new AtomicLongArray(capacityFor(expectedSize));
+    }
+
+    /**
+     * @return {@code true} if the key was not in the set
+     */
+    public boolean add(long key) {
+        checkKey(key);
+        boolean added;
+        long stamp = resizeLock.readLock();
+        try {
+            added = insert(table, key);
+        } finally {
+            resizeLock.unlockRead(stamp);
+        }
+        if (added) {
+            size.incrementAndGet();
+            if (usedSlots.incrementAndGet() > table.length() / 2) {
+                rebuild();
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @return {@code true} if the key was in the set
+     */
+    public boolean remove(long key) {
+        checkKey(key);
+        long stamp = resizeLock.readLock();
+        try {
+            AtomicLongArray slots = table;
+            int mask = slots.length() - 1;
+            for (int i = indexFor(key, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                long current = slots.get(i);
+                if (current == EMPTY) {
+                    return false;
+                }
+                if (current == key && slots.compareAndSet(i, key, TOMBSTONE)) {
+                    size.decrementAndGet();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            resizeLock.unlockRead(stamp);
+        }
+    }
+
+    public boolean contains(long key) {
+        checkKey(key);
+        long stamp = resizeLock.tryOptimisticRead();
+        boolean found = find(table, key);
+        if (resizeLock.validate(stamp)) {
+            return found;
+        }
+        stamp = resizeLock.readLock();
+        try {
+            return find(table, key);
+        } finally {
+            resizeLock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private static boolean insert(AtomicLongArray slots, long key) {
+        int mask = slots.length() - 1;
+        int i = indexFor(key, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = slots.get(i);
+            if (current == key) {
+                return false;
+            }
+            if (current == EMPTY) {
+                if (slots.compareAndSet(i, EMPTY, key)) {
+                    return true;
+                }
+                // Lost the slot to another thread: look at it again before moving on.
+                continue;
+            }
+            i = (i + 1) & mask;
+        }
+        throw new IllegalStateException("Long set is full");
+    }
+
+    private static boolean find(AtomicLongArray slots, long key) {
+        int mask = slots.length() - 1;
+        for (int i = indexFor(key, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            long current = slots.get(i);
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void rebuild() {
+        long stamp = resizeLock.writeLock();
+        try {
+            AtomicLongArray slots = table;
+            if (usedSlots.get() <= slots.length() / 2) {
+                return;
+            }
+            AtomicLongArray rebuilt = new AtomicLongArray(capacityFor(size.get() * 2));
+            int used = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                long key = slots.get(i);
+                if (key != EMPTY && key != TOMBSTONE) {
+                    insert(rebuilt, key);
+                    used++;
+                }
+            }
+            usedSlots.set(used);
+            table = rebuilt;
+        } finally {
+            resizeLock.unlockWrite(stamp);
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2 && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int indexFor(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static void checkKey(long key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package in.gilsondev.libraryapi.service.index;
+
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of the ISBNs registered in the {@code book} table, loaded when
+ * the application starts.
+ * <p>
+ * ISBNs made only of digits (optionally ending in {@code X}) and up to 17
+ * characters long, which covers ISBN-10 and ISBN-13, are packed into a
+ * {@code long} and kept in a {@link ConcurrentLongSet}. Anything else falls back
+ * to a concurrent set of strings. Keys keep the exact string, so the index
+ * agrees with the unique constraint on {@code book.isbn}.
+ * <p>
+ * The index is a fast path, not the source of truth: other instances may insert
+ * or delete books it does not see. Absent ISBNs can be trusted as long as the
+ * insert is protected by the unique constraint; present ones should be
+ * confirmed against the database before rejecting a book.
+ */
+@Component
+public class IsbnIndex implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(IsbnIndex.class);
+
+    static final int MAX_PACKED_LENGTH = 17;
+    private static final int LENGTH_SHIFT = 57;
+    private static final long CHECK_DIGIT_X = 1L << 62;
+    private static final int WARM_UP_PAGE_SIZE = 5000;
+
+    private final BookRepository repository;
+    private final ConcurrentLongSet packed = new ConcurrentLongSet(1024);
+    private final Set<String> unpacked = ConcurrentHashMap.newKeySet();
+
+    public IsbnIndex(BookRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Atomically adds the ISBN to the index.
+     *
+     * @return {@code true} if the ISBN was not indexed yet, in which case the
+     * caller owns the reservation and must {@link #release(String)} it if the
+     * book ends up not being stored
+     */
+    public boolean reserve(String isbn) {
+        long key = pack(isbn);
+        return key != 0 ? packed.add(key) : unpacked.add(isbn);
+    }
+
+    public void release(String isbn) {
+        long key = pack(isbn);
+        if (key != 0) {
+            packed.remove(key);
+        } else {
+            unpacked.remove(isbn);
+        }
+    }
+
+    public boolean contains(String isbn) {
+        long key = pack(isbn);
+        return key != 0 ? packed.contains(key) : unpacked.contains(isbn);
+    }
+
+    public int size() {
+        return packed.size() + unpacked.size();
+    }
+
+    /**
+     * Loads every registered ISBN, page by page, before the application starts
+     * taking requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long afterId = 0;
+        List<BookSummary> page;
+        do {
+            page = repository.findSummaries(new BookFilter(), afterId, WARM_UP_PAGE_SIZE);
+            for (BookSummary book : page) {
+                reserve(book.getIsbn());
+                afterId = book.getId();
+            }
+        } while (page.size() == WARM_UP_PAGE_SIZE);
+        log.info("ISBN index loaded with {} entries", size());
+    }
+
+    /**
+     * Packs the ISBN as {@code [X flag][length][digits]}, or returns 0 when it
+     * cannot be packed without losing information.
+     */
+    static long pack(String isbn) {
+        int length = isbn.length();
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return 0;
+        }
+        long key = 0;
+        int digits = length;
+        if (isbn.charAt(length - 1) == 'X') {
+            key = CHECK_DIGIT_X;
+            digits--;
+        }
+        long value = 0;
+        for (int i = 0; i < digits; i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return key | ((long) length << LENGTH_SHIFT) | value;
+    }
+}
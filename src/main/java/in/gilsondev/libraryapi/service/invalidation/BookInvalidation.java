@@ -0,0 +1,23 @@
+package in.gilsondev.libraryapi.service.invalidation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Message sent to the other instances when a book was updated or deleted.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BookInvalidation {
+    /**
+     * Identifies the instance that made the change, which ignores its own messages.
+     */
+    private final String origin;
+    private final Long id;
+    /**
+     * Version of the book after the change, or {@code null} if it was deleted.
+     */
+    private final Long version;
+}
@@ -0,0 +1,110 @@
+package in.gilsondev.libraryapi.service.invalidation;
+
+import in.gilsondev.libraryapi.service.BookChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the caches of the instances sharing a database consistent with each
+ * other.
+ * <p>
+ * Every local {@link BookChangedEvent} is sent to the other instances as a
+ * {@link BookInvalidation} with the id and the new version of the book, and the
+ * invalidations they send are published here as remote
+ * {@link BookChangedEvent}s, which the caches handle like local ones.
+ * <p>
+ * The transport is the {@link InvalidationTransport} bean if there is one. With
+ * {@code library.invalidation.transport=loopback}, it is instead the
+ * {@link LoopbackInvalidationTransport} channel named by
+ * {@code library.invalidation.channel}, which only connects the contexts of one
+ * JVM. Without either, nothing is sent, and a warning is logged at startup if
+ * the book cache is enabled. Sending happens after the change was
+ * committed; if it fails, the other instances may serve the previous version
+ * until their caches expire, and the failure is counted in
+ * {@code book.invalidations.failed}.
+ */
+@Component
+public class BookInvalidationBus implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(BookInvalidationBus.class);
+
+    private final String origin = UUID.randomUUID().toString();
+    private final InvalidationTransport transport;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Consumer<BookInvalidation> subscriber = this::receive;
+    private final Counter sent;
+    private final Counter received;
+    private final Counter failed;
+
+    public BookInvalidationBus(ObjectProvider<InvalidationTransport> transport,
+                               ApplicationEventPublisher eventPublisher,
+                               MeterRegistry meterRegistry,
+                               @Value("${library.invalidation.transport:}") String transportName,
+                               @Value("${library.invalidation.channel:library}") String channel,
+                               @Value("${library.cache.enabled:true}") boolean cacheEnabled) {
+        if ("loopback".equals(transportName)) {
+            this.transport = LoopbackInvalidationTransport.channel(channel);
+        } else if (StringUtils.hasText(transportName)) {
+            throw new IllegalArgumentException("Unknown library.invalidation.transport: " + transportName);
+        } else {
+            this.transport = transport.getIfAvailable();
+            if (this.transport == null && cacheEnabled) {
+                log.warn("The book cache is enabled without an InvalidationTransport: other instances will serve "
+                        + "stale books until their cache expires");
+            }
+        }
+        this.eventPublisher = eventPublisher;
+        this.sent = meterRegistry.counter("book.invalidations", "direction", "sent");
+        this.received = meterRegistry.counter("book.invalidations", "direction", "received");
+        this.failed = meterRegistry.counter("book.invalidations.failed");
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (transport != null) {
+            transport.subscribe(subscriber);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (transport != null) {
+            transport.unsubscribe(subscriber);
+        }
+    }
+
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (transport == null || event.isRemote()) {
+            return;
+        }
+        BookInvalidation invalidation = new BookInvalidation(origin, event.getId(), event.getVersion());
+        try {
+            transport.publish(invalidation);
+            sent.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Could not send {}", invalidation, e);
+        }
+    }
+
+    void receive(BookInvalidation invalidation) {
+        if (origin.equals(invalidation.getOrigin())) {
+            return;
+        }
+        received.increment();
+        eventPublisher.publishEvent(new BookChangedEvent(invalidation.getId(), invalidation.getVersion(), true));
+    }
+}
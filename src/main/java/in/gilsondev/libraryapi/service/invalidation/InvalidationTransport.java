@@ -0,0 +1,24 @@
+package in.gilsondev.libraryapi.service.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link BookInvalidation}s between the instances sharing a database.
+ * <p>
+ * An implementation delivers every published message to the subscribers of
+ * all the instances, the publisher included. Stale reads after a write are only
+ * ruled out when {@link #publish(BookInvalidation)} returns after the other
+ * instances processed the message, as {@link LoopbackInvalidationTransport}
+ * does; with an asynchronous broker, instances may serve the previous version
+ * for as long as the delivery takes.
+ * <p>
+ * Declaring a bean of this type replaces the default loopback transport.
+ */
+public interface InvalidationTransport {
+
+    void publish(BookInvalidation invalidation);
+
+    void subscribe(Consumer<BookInvalidation> subscriber);
+
+    void unsubscribe(Consumer<BookInvalidation> subscriber);
+}
@@ -0,0 +1,52 @@
+package in.gilsondev.libraryapi.service.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationTransport} between the application contexts of one JVM
+ * that use the same channel name. Messages are delivered synchronously, on the
+ * publishing thread, so every context has processed them when
+ * {@link #publish(BookInvalidation)} returns.
+ * <p>
+ * Only used with {@code library.invalidation.transport=loopback}, as in the
+ * tests that run several contexts side by side; with a single context per JVM
+ * it only delivers messages back to their publisher, which ignores them.
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+    private static final Logger log = LoggerFactory.getLogger(LoopbackInvalidationTransport.class);
+    private static final ConcurrentMap<String, LoopbackInvalidationTransport> CHANNELS = new ConcurrentHashMap<>();
+
+    private final List<Consumer<BookInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    public static LoopbackInvalidationTransport channel(String name) {
+        return CHANNELS.computeIfAbsent(name, key -> new LoopbackInvalidationTransport());
+    }
+
+    @Override
+    public void publish(BookInvalidation invalidation) {
+        for (Consumer<BookInvalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                log.warn("Could not deliver {}", invalidation, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BookInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void unsubscribe(Consumer<BookInvalidation> subscriber) {
+        subscribers.remove(subscriber);
+    }
+}
@@ -0,0 +1,246 @@
+package in.gilsondev.libraryapi.service.outbox;
+
+import in.gilsondev.libraryapi.exception.ChangesExpiredException;
+import in.gilsondev.libraryapi.model.entities.BookChange;
+import in.gilsondev.libraryapi.model.entities.BookChangeCursor;
+import in.gilsondev.libraryapi.model.repositories.BookChangeCursorRepository;
+import in.gilsondev.libraryapi.model.repositories.BookChangeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the changes recorded by the {@link BookOutbox} as a feed ordered by
+ * sequence number.
+ * <p>
+ * Every {@code library.outbox.relay-interval}, the relay numbers the committed
+ * changes that have no sequence yet, in batches of {@code batch-size}, under the
+ * lock of the {@link BookChangeCursor}: numbers are given in one transaction at
+ * a time, so a reader that has seen sequence {@code n} will never find a new
+ * change below it. Every instance runs the relay; whichever gets the lock
+ * numbers the pending changes.
+ * <p>
+ * The relay then loads the changes numbered since its last run, by any
+ * instance, into memory, where the latest {@code recent-capacity} are kept for
+ * the readers tailing the feed, and wakes up the {@link #await(Runnable) waiting}
+ * readers. Older changes are read from the table. Published changes are
+ * deleted after {@code retention}.
+ */
+@Component
+public class BookChangeRelay implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(BookChangeRelay.class);
+
+    private static final long PURGE_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final BookChangeRepository changes;
+    private final BookChangeCursorRepository cursors;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration relayInterval;
+    private final int batchSize;
+    private final int recentCapacity;
+    private final Duration retention;
+
+    private final NavigableMap<Long, BookChange> recent = new ConcurrentSkipListMap<>();
+    private final Set<Runnable> waiters = ConcurrentHashMap.newKeySet();
+    private final Object relayMonitor = new Object();
+    private volatile long lastSequence;
+    private long nextPurge;
+    private ScheduledExecutorService relayer;
+
+    public BookChangeRelay(BookChangeRepository changes,
+                           BookChangeCursorRepository cursors,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${library.outbox.enabled:false}") boolean enabled,
+                           @Value("${library.outbox.relay-interval:100ms}") Duration relayInterval,
+                           @Value("${library.outbox.batch-size:500}") int batchSize,
+                           @Value("${library.outbox.recent-capacity:10000}") int recentCapacity,
+                           @Value("${library.outbox.retention:7d}") Duration retention) {
+        this.changes = changes;
+        this.cursors = cursors;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.relayInterval = relayInterval;
+        this.batchSize = batchSize;
+        this.recentCapacity = recentCapacity;
+        this.retention = retention;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Returns up to {@code limit} changes numbered after {@code since}, in order.
+     *
+     * @throws ChangesExpiredException if changes after {@code since} were
+     *                                 already deleted
+     */
+    public List<BookChange> findChanges(long since, int limit) {
+        if (since >= lastSequence) {
+            return new ArrayList<>();
+        }
+        List<BookChange> found = new ArrayList<>((int) Math.min(limit, lastSequence - since));
+        for (BookChange change : recent.tailMap(since, false).values()) {
+            if (found.size() == limit) {
+                break;
+            }
+            found.add(change);
+        }
+        // Unless older changes were dropped from memory in the meantime.
+        if (!found.isEmpty() && found.get(0).getSequence() == since + 1) {
+            return found;
+        }
+        Long firstSequence = changes.findFirstSequence();
+        if (firstSequence != null && since < firstSequence - 1) {
+            throw new ChangesExpiredException(firstSequence);
+        }
+        return changes.findRelayedAfter(since, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Runs {@code waiter} once after the next changes are published, unless it
+     * is {@link #cancel(Runnable) cancelled} before. Callers check
+     * {@link #getLastSequence()} again after registering, so they do not miss a
+     * publication made in between.
+     */
+    public void await(Runnable waiter) {
+        waiters.add(waiter);
+    }
+
+    public void cancel(Runnable waiter) {
+        waiters.remove(waiter);
+    }
+
+    /**
+     * Numbers the pending changes and publishes the ones numbered since the
+     * last run.
+     */
+    public void relay() {
+        synchronized (relayMonitor) {
+            int numbered;
+            do {
+                numbered = numberPending();
+            } while (numbered == batchSize);
+            publish();
+            purge();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        Long last = changes.findLastSequence();
+        lastSequence = last == null ? 0 : last;
+        nextPurge = System.nanoTime();
+
+        relayer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-change-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = relayInterval.toMillis();
+        relayer.scheduleWithFixedDelay(() -> {
+            try {
+                relay();
+            } catch (RuntimeException e) {
+                log.warn("Could not relay book changes, retrying in {} ms", interval, e);
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (relayer != null) {
+            relayer.shutdown();
+            relayer.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private int numberPending() {
+        try {
+            Integer numbered = transactionTemplate.execute(status -> {
+                BookChangeCursor cursor = cursors.findForUpdate(BookChangeCursor.ID).orElse(null);
+                if (cursor == null) {
+                    // First run on this database; the instance that fails to
+                    // insert it numbers on its next run.
+                    cursors.saveAndFlush(new BookChangeCursor(BookChangeCursor.ID, 0));
+                    return 0;
+                }
+                List<BookChange> pending = changes.findUnrelayed(PageRequest.of(0, batchSize));
+                long sequence = cursor.getLastSequence();
+                for (BookChange change : pending) {
+                    change.setSequence(++sequence);
+                }
+                cursor.setLastSequence(sequence);
+                return pending.size();
+            });
+            return numbered == null ? 0 : numbered;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Book change cursor created by another instance");
+            return 0;
+        }
+    }
+
+    private void publish() {
+        long published = lastSequence;
+        List<BookChange> batch;
+        do {
+            batch = changes.findRelayedAfter(published, PageRequest.of(0, batchSize));
+            for (BookChange change : batch) {
+                recent.put(change.getSequence(), change);
+                published = change.getSequence();
+            }
+        } while (batch.size() == batchSize);
+        while (!recent.isEmpty() && published - recent.firstKey() >= recentCapacity) {
+            recent.pollFirstEntry();
+        }
+        if (published == lastSequence) {
+            return;
+        }
+        lastSequence = published;
+        for (Runnable waiter : waiters) {
+            if (waiters.remove(waiter)) {
+                try {
+                    waiter.run();
+                } catch (RuntimeException e) {
+                    log.warn("Could not notify a reader of book changes", e);
+                }
+            }
+        }
+    }
+
+    private void purge() {
+        long now = System.nanoTime();
+        if (now - nextPurge < 0) {
+            return;
+        }
+        nextPurge = now + PURGE_INTERVAL;
+        Integer deleted = transactionTemplate.execute(status ->
+                changes.deleteRelayedBefore(Instant.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Deleted {} book changes older than {}", deleted, retention);
+        }
+    }
+}
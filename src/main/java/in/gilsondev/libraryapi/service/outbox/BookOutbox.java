@@ -0,0 +1,61 @@
+package in.gilsondev.libraryapi.service.outbox;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.entities.BookChange;
+import in.gilsondev.libraryapi.model.repositories.BookChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the changes of books in the {@code book_change} table, enabled with
+ * {@code library.outbox.enabled=true}. The changes are written in the
+ * transaction of the book itself, so they are committed or rolled back
+ * together, and published afterwards by the {@link BookChangeRelay}.
+ */
+@Component
+public class BookOutbox {
+    private final BookChangeRepository repository;
+    private final boolean enabled;
+
+    public BookOutbox(BookChangeRepository repository, @Value("${library.outbox.enabled:false}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(BookChange.Type type, Book book) {
+        if (enabled) {
+            repository.save(change(type, book));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(BookChange.Type type, List<Book> books) {
+        if (enabled) {
+            List<BookChange> changes = new ArrayList<>(books.size());
+            for (Book book : books) {
+                changes.add(change(type, book));
+            }
+            repository.saveAll(changes);
+        }
+    }
+
+    private BookChange change(BookChange.Type type, Book book) {
+        return BookChange.builder()
+                .bookId(book.getId())
+                .type(type)
+                .version(type == BookChange.Type.DELETED ? null : book.getVersion())
+                .changedAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package in.gilsondev.libraryapi.service.purge;
+
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Removes the rows of deleted books, which deletes only mark with a tombstone.
+ * <p>
+ * Every {@code library.purge.interval}, the purger deletes the tombstoned rows
+ * in batches of {@code batch-size}, waiting {@code pause} between batches. It
+ * stops until the next run as soon as a request waits for a pool connection
+ * ({@code hikaricp.connections.pending}), and only runs inside {@code window}
+ * ({@code HH:mm-HH:mm}, local time, which may span midnight) when one is set.
+ * Purged rows are counted by the {@code book.purged} metric.
+ */
+@Component
+public class BookPurger implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(BookPurger.class);
+
+    private final BookRepository repository;
+    private final MeterRegistry registry;
+    private final Counter purged;
+    private final boolean enabled;
+    private final Duration interval;
+    private final int batchSize;
+    private final Duration pause;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+
+    private volatile boolean stopped;
+    private ScheduledExecutorService purger;
+
+    public BookPurger(BookRepository repository,
+                      MeterRegistry registry,
+                      @Value("${library.purge.enabled:true}") boolean enabled,
+                      @Value("${library.purge.interval:1m}") Duration interval,
+                      @Value("${library.purge.batch-size:500}") int batchSize,
+                      @Value("${library.purge.pause:100ms}") Duration pause,
+                      @Value("${library.purge.window:}") String window) {
+        this.repository = repository;
+        this.registry = registry;
+        this.purged = registry.counter("book.purged");
+        this.enabled = enabled;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        if (StringUtils.hasText(window)) {
+            String[] bounds = window.trim().split("\\s*-\\s*");
+            if (bounds.length != 2) {
+                throw new IllegalArgumentException("library.purge.window must be HH:mm-HH:mm, got " + window);
+            }
+            this.windowStart = LocalTime.parse(bounds[0]);
+            this.windowEnd = LocalTime.parse(bounds[1]);
+        } else {
+            this.windowStart = null;
+            this.windowEnd = null;
+        }
+    }
+
+    /**
+     * Removes the rows of up to {@code batch-size} deleted books, the oldest
+     * first. Returns the number of rows removed.
+     */
+    public int purgeBatch() {
+        List<Long> ids = repository.findDeletedIds(PageRequest.of(0, batchSize))
+                .stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int removed = repository.purgeDeleted(ids);
+        purged.increment(removed);
+        return removed;
+    }
+
+    /**
+     * Purges batch after batch until none is left, the database gets busy or
+     * the window closes. Returns the number of rows removed.
+     */
+    public long purge() {
+        long removed = 0;
+        while (!stopped && inWindow(LocalTime.now()) && !isBusy()) {
+            int batch = purgeBatch();
+            removed += batch;
+            if (batch < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pause.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return removed;
+    }
+
+    boolean inWindow(LocalTime time) {
+        if (windowStart == null) {
+            return true;
+        }
+        if (windowStart.isAfter(windowEnd)) {
+            return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+    }
+
+    /**
+     * Whether requests are waiting for a connection of any pool.
+     */
+    boolean isBusy() {
+        return registry.find("hikaricp.connections.pending")
+                .gauges()
+                .stream()
+                .mapToDouble(Gauge::value)
+                .anyMatch(pending -> pending > 0);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long delay = interval.toMillis();
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                long removed = purge();
+                if (removed > 0) {
+                    log.info("Purged {} deleted books", removed);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not purge deleted books, retrying in {} ms", delay, e);
+            }
+        }, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopped = true;
+        if (purger != null) {
+            purger.shutdown();
+            purger.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package in.gilsondev.libraryapi.service.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import static in.gilsondev.libraryapi.service.search.SegmentWriter.BOOK_ENTRY_SIZE;
+import static in.gilsondev.libraryapi.service.search.SegmentWriter.POSTING_ENTRY_SIZE;
+import static in.gilsondev.libraryapi.service.search.SegmentWriter.TERM_ENTRY_SIZE;
+import static in.gilsondev.libraryapi.service.search.SegmentWriter.TRIGRAM_ENTRY_SIZE;
+
+/**
+ * Immutable segment memory-mapped from a file written by {@link SegmentWriter}.
+ * Nothing is loaded on the heap: lookups binary-search the mapped tables, so
+ * opening a segment of a million books is immediate and its pages are shared
+ * with the OS page cache.
+ * <p>
+ * Only absolute reads are made on the buffer, so the segment can be searched
+ * from any number of threads.
+ */
+final class DiskSegment implements Segment {
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final Instant checkpoint;
+    private final int bookCount;
+    private final long totalLength;
+    private final int termCount;
+    private final int trigramCount;
+    private final int booksOffset;
+    private final int textOffset;
+    private final int termsOffset;
+    private final int stringsOffset;
+    private final int postingsOffset;
+    private final int trigramsOffset;
+    private final int ordinalsOffset;
+
+    private DiskSegment(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < SegmentWriter.HEADER_SIZE || buffer.getInt(0) != SegmentWriter.MAGIC
+                || buffer.getInt(4) != SegmentWriter.FORMAT_VERSION) {
+            throw new IOException(file + " is not a search segment");
+        }
+        this.checkpoint = Instant.ofEpochMilli(buffer.getLong(8));
+        this.bookCount = buffer.getInt(16);
+        this.totalLength = buffer.getLong(20);
+        this.termCount = buffer.getInt(28);
+        this.trigramCount = buffer.getInt(32);
+        this.booksOffset = buffer.getInt(36);
+        this.textOffset = buffer.getInt(40);
+        this.termsOffset = buffer.getInt(44);
+        this.stringsOffset = buffer.getInt(48);
+        this.postingsOffset = buffer.getInt(52);
+        this.trigramsOffset = buffer.getInt(56);
+        this.ordinalsOffset = buffer.getInt(60);
+    }
+
+    static DiskSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new DiskSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    Instant checkpoint() {
+        return checkpoint;
+    }
+
+    @Override
+    public int bookCount() {
+        return bookCount;
+    }
+
+    @Override
+    public long totalLength() {
+        return totalLength;
+    }
+
+    @Override
+    public int length(long bookId) {
+        int index = indexOfBook(bookId);
+        return index < 0 ? -1 : buffer.getInt(booksOffset + index * BOOK_ENTRY_SIZE + 8);
+    }
+
+    @Override
+    public boolean shadows(long bookId) {
+        return false;
+    }
+
+    @Override
+    public Postings postings(String term) {
+        int ordinal = indexOfTerm(term.getBytes(StandardCharsets.UTF_8));
+        if (ordinal < 0) {
+            return null;
+        }
+        int entry = termsOffset + ordinal * TERM_ENTRY_SIZE;
+        return new DiskPostings(postingsOffset + buffer.getInt(entry + 8) * POSTING_ENTRY_SIZE,
+                buffer.getInt(entry + 12));
+    }
+
+    @Override
+    public void prefixTerms(String prefix, int max, Consumer<String> consumer) {
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        int ordinal = indexOfTerm(prefixBytes);
+        if (ordinal < 0) {
+            ordinal = -ordinal - 1;
+        }
+        for (int count = 0; ordinal < termCount && count < max && startsWith(ordinal, prefixBytes); ordinal++) {
+            consumer.accept(term(ordinal));
+            count++;
+        }
+    }
+
+    @Override
+    public void similarTerms(String term, double minSimilarity, Map<String, Double> similar) {
+        long[] trigrams = TextAnalyzer.trigrams(term);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (long trigram : trigrams) {
+            int index = indexOfTrigram(trigram);
+            if (index < 0) {
+                continue;
+            }
+            int entry = trigramsOffset + index * TRIGRAM_ENTRY_SIZE;
+            int first = buffer.getInt(entry + 8);
+            int count = buffer.getInt(entry + 12);
+            for (int i = 0; i < count; i++) {
+                shared.merge(buffer.getInt(ordinalsOffset + (first + i) * Integer.BYTES), 1, Integer::sum);
+            }
+        }
+        shared.forEach((ordinal, count) -> {
+            // The similarity cannot exceed count / trigrams.length, so most
+            // candidates are dropped without decoding the term.
+            if (count < minSimilarity * trigrams.length) {
+                return;
+            }
+            String candidate = term(ordinal);
+            double similarity = TextAnalyzer.similarity(count, trigrams.length,
+                    TextAnalyzer.trigrams(candidate).length);
+            if (similarity >= minSimilarity) {
+                similar.merge(candidate, similarity, Math::max);
+            }
+        });
+    }
+
+    @Override
+    public Iterator<IndexedBook> books() {
+        return new Iterator<IndexedBook>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < bookCount;
+            }
+
+            @Override
+            public IndexedBook next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int entry = booksOffset + index++ * BOOK_ENTRY_SIZE;
+                int position = textOffset + buffer.getInt(entry + 12);
+                int titleLength = buffer.getInt(position);
+                String title = string(position + 4, titleLength);
+                position += 4 + Math.max(titleLength, 0);
+                String author = string(position + 4, buffer.getInt(position));
+                return new IndexedBook(buffer.getLong(entry), title, author);
+            }
+        };
+    }
+
+    private int indexOfBook(long bookId) {
+        int low = 0;
+        int high = bookCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long id = buffer.getLong(booksOffset + middle * BOOK_ENTRY_SIZE);
+            if (id < bookId) {
+                low = middle + 1;
+            } else if (id > bookId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int indexOfTerm(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareTerm(middle, term);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int indexOfTrigram(long trigram) {
+        int low = 0;
+        int high = trigramCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = buffer.getLong(trigramsOffset + middle * TRIGRAM_ENTRY_SIZE);
+            if (value < trigram) {
+                low = middle + 1;
+            } else if (value > trigram) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the term at {@code ordinal} with {@code term} in the order used
+     * by {@link SegmentWriter#compareBytes(byte[], byte[])}, without decoding it.
+     */
+    private int compareTerm(int ordinal, byte[] term) {
+        int entry = termsOffset + ordinal * TERM_ENTRY_SIZE;
+        int position = stringsOffset + buffer.getInt(entry);
+        int length = buffer.getInt(entry + 4);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(position + i) & 0xFF) - (term[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - term.length;
+    }
+
+    private boolean startsWith(int ordinal, byte[] prefix) {
+        int entry = termsOffset + ordinal * TERM_ENTRY_SIZE;
+        int position = stringsOffset + buffer.getInt(entry);
+        if (buffer.getInt(entry + 4) < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(position + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String term(int ordinal) {
+        int entry = termsOffset + ordinal * TERM_ENTRY_SIZE;
+        return string(stringsOffset + buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    private String string(int position, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final class DiskPostings implements Postings {
+        private final int offset;
+        private final int size;
+
+        DiskPostings(int offset, int size) {
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long bookId(int index) {
+            return buffer.getLong(offset + index * POSTING_ENTRY_SIZE);
+        }
+
+        @Override
+        public int frequency(int index) {
+            return buffer.getInt(offset + index * POSTING_ENTRY_SIZE + 8);
+        }
+
+        @Override
+        public int indexOf(long bookId) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long id = bookId(middle);
+                if (id < bookId) {
+                    low = middle + 1;
+                } else if (id > bookId) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package in.gilsondev.libraryapi.service.search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A book as the search index sees it: the text it was built from and the
+ * frequency of each of its terms. Title terms count {@value #TITLE_WEIGHT} times,
+ * so a match in the title ranks above the same match in the author.
+ */
+final class IndexedBook {
+    static final int TITLE_WEIGHT = 2;
+
+    final long id;
+    final String title;
+    final String author;
+    final Map<String, Integer> frequencies;
+    /**
+     * Sum of the weighted frequencies, used as the document length by BM25.
+     */
+    final int length;
+
+    IndexedBook(long id, String title, String author) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : TextAnalyzer.tokenize(title)) {
+            frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String term : TextAnalyzer.tokenize(author)) {
+            frequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+        this.length = length;
+    }
+}
@@ -0,0 +1,190 @@
+package in.gilsondev.libraryapi.service.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Mutable segment taking the changes made since the last flush. It holds the
+ * books added or updated since then and the ids of the books deleted, which
+ * hides them in the segment on disk.
+ * <p>
+ * Not thread-safe: {@link SearchIndex} guards it with its lock, and stops
+ * changing it once it is handed to a flush.
+ */
+final class MemorySegment implements Segment {
+    private final TreeMap<Long, IndexedBook> books = new TreeMap<>();
+    private final Set<Long> deleted = new HashSet<>();
+    private final TreeMap<String, MemoryPostings> terms = new TreeMap<>();
+    private final Map<Long, Set<String>> termsByTrigram = new HashMap<>();
+    private long totalLength;
+
+    void add(IndexedBook book) {
+        removeBook(book.id);
+        deleted.remove(book.id);
+        books.put(book.id, book);
+        totalLength += book.length;
+        book.frequencies.forEach((term, frequency) -> terms.computeIfAbsent(term, this::newTerm)
+                .add(book.id, frequency));
+    }
+
+    void delete(long bookId) {
+        removeBook(bookId);
+        deleted.add(bookId);
+    }
+
+    /**
+     * Number of books added and deleted, which is what a flush has to write.
+     */
+    int changeCount() {
+        return books.size() + deleted.size();
+    }
+
+    @Override
+    public int bookCount() {
+        return books.size();
+    }
+
+    @Override
+    public long totalLength() {
+        return totalLength;
+    }
+
+    @Override
+    public int length(long bookId) {
+        IndexedBook book = books.get(bookId);
+        return book == null ? -1 : book.length;
+    }
+
+    @Override
+    public boolean shadows(long bookId) {
+        return books.containsKey(bookId) || deleted.contains(bookId);
+    }
+
+    @Override
+    public Postings postings(String term) {
+        return terms.get(term);
+    }
+
+    @Override
+    public void prefixTerms(String prefix, int max, Consumer<String> consumer) {
+        int count = 0;
+        for (String term : terms.tailMap(prefix, true).keySet()) {
+            if (count++ == max || !term.startsWith(prefix)) {
+                return;
+            }
+            consumer.accept(term);
+        }
+    }
+
+    @Override
+    public void similarTerms(String term, double minSimilarity, Map<String, Double> similar) {
+        long[] trigrams = TextAnalyzer.trigrams(term);
+        Map<String, Integer> shared = new HashMap<>();
+        for (long trigram : trigrams) {
+            for (String candidate : termsByTrigram.getOrDefault(trigram, Collections.emptySet())) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+        shared.forEach((candidate, count) -> {
+            double similarity = TextAnalyzer.similarity(count, trigrams.length,
+                    TextAnalyzer.trigrams(candidate).length);
+            if (similarity >= minSimilarity) {
+                similar.merge(candidate, similarity, Math::max);
+            }
+        });
+    }
+
+    @Override
+    public Iterator<IndexedBook> books() {
+        return books.values().iterator();
+    }
+
+    private MemoryPostings newTerm(String term) {
+        for (long trigram : TextAnalyzer.trigrams(term)) {
+            termsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(term);
+        }
+        return new MemoryPostings();
+    }
+
+    private void removeBook(long bookId) {
+        IndexedBook book = books.remove(bookId);
+        if (book == null) {
+            return;
+        }
+        totalLength -= book.length;
+        for (String term : book.frequencies.keySet()) {
+            MemoryPostings postings = terms.get(term);
+            postings.remove(bookId);
+            if (postings.size() == 0) {
+                terms.remove(term);
+                for (long trigram : TextAnalyzer.trigrams(term)) {
+                    Set<String> sameTrigram = termsByTrigram.get(trigram);
+                    sameTrigram.remove(term);
+                    if (sameTrigram.isEmpty()) {
+                        termsByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class MemoryPostings implements Postings {
+        private long[] bookIds = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(long bookId, int frequency) {
+            int index = indexOf(bookId);
+            if (index >= 0) {
+                frequencies[index] = frequency;
+                return;
+            }
+            index = -index - 1;
+            if (size == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(bookIds, index, bookIds, index + 1, size - index);
+            System.arraycopy(frequencies, index, frequencies, index + 1, size - index);
+            bookIds[index] = bookId;
+            frequencies[index] = frequency;
+            size++;
+        }
+
+        void remove(long bookId) {
+            int index = indexOf(bookId);
+            if (index >= 0) {
+                System.arraycopy(bookIds, index + 1, bookIds, index, size - index - 1);
+                System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+                size--;
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long bookId(int index) {
+            return bookIds[index];
+        }
+
+        @Override
+        public int frequency(int index) {
+            return frequencies[index];
+        }
+
+        @Override
+        public int indexOf(long bookId) {
+            return Arrays.binarySearch(bookIds, 0, size, bookId);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package in.gilsondev.libraryapi.service.search;
+
+/**
+ * Books containing a term, ordered by book id, with the weighted frequency of
+ * the term in each.
+ */
+interface Postings {
+    int size();
+
+    long bookId(int index);
+
+    int frequency(int index);
+
+    /**
+     * Position of {@code bookId}, or a negative number if the term does not
+     * occur in that book.
+     */
+    int indexOf(long bookId);
+}
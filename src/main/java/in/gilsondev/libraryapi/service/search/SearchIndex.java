@@ -0,0 +1,667 @@
+package in.gilsondev.libraryapi.service.search;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Full-text index over the title and author of the books, answering
+ * {@link #search(String, int)} without touching the database.
+ * <p>
+ * The index is a stack of segments: a memory-mapped {@link DiskSegment} with
+ * everything up to the last flush, the {@link MemorySegment}s being flushed and
+ * the active {@link MemorySegment} taking new changes. Once the active segment
+ * holds {@code library.search.flush-threshold} changes, a background thread
+ * merges the stack into a new file and maps it in place of the old one.
+ * <p>
+ * With {@code library.search.directory} set, the segment is kept there and also
+ * written on shutdown. At startup it is mapped again, and the books updated
+ * since its checkpoint are re-indexed. The index is rebuilt from the database
+ * when there is no segment or when the number of books does not match anymore,
+ * e.g. because books were deleted while the application was down. Without a
+ * directory the segment lives in a temporary directory and the index is
+ * rebuilt at every start. The directory must not be shared by two instances.
+ */
+@Component
+public class SearchIndex implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int LOAD_PAGE_SIZE = 5000;
+    /**
+     * A book's timestamp is set before its transaction commits, so a segment
+     * may miss changes stamped shortly before its checkpoint.
+     */
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(1);
+
+    private static final int MAX_EXPANSIONS = 50;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final double EXACT_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.6;
+    private static final double FUZZY_WEIGHT = 0.5;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final BookRepository repository;
+    private final boolean persistent;
+    private final int flushThreshold;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object flushMonitor = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Path directory;
+    private long generation;
+
+    // Guarded by lock.
+    private DiskSegment base;
+    private final List<MemorySegment> flushing = new ArrayList<>();
+    private MemorySegment active = new MemorySegment();
+    private int bookCount;
+    private long totalLength;
+
+    public SearchIndex(BookRepository repository,
+                       @Value("${library.search.directory:}") String directory,
+                       @Value("${library.search.flush-threshold:10000}") int flushThreshold) {
+        this.repository = repository;
+        this.persistent = !directory.isEmpty();
+        this.directory = persistent ? Paths.get(directory) : null;
+        this.flushThreshold = flushThreshold;
+    }
+
+    public void index(Book book) {
+        indexAll(Collections.singletonList(book));
+    }
+
+    public void indexAll(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                IndexedBook indexed = new IndexedBook(book.getId(), book.getTitle(), book.getAuthor());
+                forget(indexed.id);
+                active.add(indexed);
+                bookCount++;
+                totalLength += indexed.length;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleFlushIfNeeded();
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            forget(bookId);
+            active.delete(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleFlushIfNeeded();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bookCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the books matching every word of {@code query}, best
+     * matches first. A word matches the same term; the last word, which may
+     * still be being typed, also matches terms starting with it. A word that is
+     * not a term of the index matches terms sharing most of its trigrams
+     * instead, so small typos are tolerated. Books are ranked by BM25 over their title and
+     * author, where title terms count twice, and the weaker kinds of match
+     * score less.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(TextAnalyzer.tokenize(query)));
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            List<Segment> segments = segments();
+            double averageLength = bookCount == 0 ? 1 : Math.max(1, totalLength / (double) bookCount);
+
+            List<List<Expansion>> expansions = new ArrayList<>(words.size());
+            for (int i = 0; i < words.size(); i++) {
+                List<Expansion> wordExpansions = expand(words.get(i), i == words.size() - 1, segments);
+                if (wordExpansions.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                expansions.add(wordExpansions);
+            }
+            // Candidates come from the rarest word; the others only filter them.
+            expansions.sort(Comparator.comparingLong(SearchIndex::postingCount));
+
+            Map<Long, Candidate> candidates = new HashMap<>();
+            for (Expansion expansion : expansions.get(0)) {
+                for (int segment = 0; segment < segments.size(); segment++) {
+                    Postings postings = expansion.postings[segment];
+                    for (int i = 0; postings != null && i < postings.size(); i++) {
+                        long bookId = postings.bookId(i);
+                        if (!isLive(bookId, segment, segments)) {
+                            continue;
+                        }
+                        int length = segments.get(segment).length(bookId);
+                        double score = expansion.score(postings.frequency(i), length, averageLength);
+                        Candidate candidate = candidates.computeIfAbsent(bookId,
+                                key -> new Candidate(key, length));
+                        candidate.segment = segment;
+                        candidate.wordScore = Math.max(candidate.wordScore, score);
+                    }
+                }
+            }
+            candidates.values().forEach(Candidate::endWord);
+
+            for (List<Expansion> wordExpansions : expansions.subList(1, expansions.size())) {
+                Iterator<Candidate> iterator = candidates.values().iterator();
+                while (iterator.hasNext()) {
+                    Candidate candidate = iterator.next();
+                    for (Expansion expansion : wordExpansions) {
+                        Postings postings = expansion.postings[candidate.segment];
+                        int index = postings == null ? -1 : postings.indexOf(candidate.bookId);
+                        if (index >= 0) {
+                            candidate.wordScore = Math.max(candidate.wordScore,
+                                    expansion.score(postings.frequency(index), candidate.length, averageLength));
+                        }
+                    }
+                    if (candidate.wordScore == 0) {
+                        iterator.remove();
+                    } else {
+                        candidate.endWord();
+                    }
+                }
+            }
+            return top(candidates.values(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Maps the segment saved in the directory, or builds the index from the
+     * database, before the application starts taking requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        try {
+            if (persistent) {
+                Files.createDirectories(directory);
+            } else {
+                directory = Files.createTempDirectory("library-search");
+            }
+            if (!persistent || !load()) {
+                rebuild();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the search index in " + directory, e);
+        }
+        log.info("Search index ready with {} books in {} ms", size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Saves the pending changes when the directory is kept between runs, and
+     * deletes the temporary directory otherwise.
+     */
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(1, TimeUnit.MINUTES);
+        if (directory == null) {
+            return;
+        }
+        if (persistent) {
+            flush();
+        } else {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Merges the segment on disk with the changes made so far into a new
+     * segment file. Searches and changes go on while the file is written.
+     */
+    public void flush() throws IOException {
+        synchronized (flushMonitor) {
+            DiskSegment current;
+            List<MemorySegment> frozen;
+            Instant checkpoint;
+            lock.writeLock().lock();
+            try {
+                if (active.changeCount() > 0) {
+                    flushing.add(active);
+                    active = new MemorySegment();
+                }
+                if (flushing.isEmpty()) {
+                    return;
+                }
+                current = base;
+                frozen = new ArrayList<>(flushing);
+                checkpoint = Instant.now();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Path file = nextSegmentFile();
+            SegmentWriter.write(file, merge(current, frozen), checkpoint);
+            DiskSegment merged = DiskSegment.open(file);
+
+            lock.writeLock().lock();
+            try {
+                base = merged;
+                flushing.removeAll(frozen);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            deleteSegmentsBefore(file);
+        }
+    }
+
+    private boolean load() throws IOException {
+        Path file = latestSegmentFile();
+        if (file == null) {
+            return false;
+        }
+        DiskSegment segment;
+        try {
+            segment = DiskSegment.open(file);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable search segment {}", file, e);
+            return false;
+        }
+        replaceAll(segment);
+
+        BookFilter updated = BookFilter.builder()
+                .updatedSince(segment.checkpoint().minus(CATCH_UP_MARGIN))
+                .build();
+        List<Book> page = new ArrayList<>(LOAD_PAGE_SIZE);
+        Iterator<IndexedBook> books = new DatabaseBooks(updated);
+        while (books.hasNext()) {
+            IndexedBook book = books.next();
+            page.add(Book.builder().id(book.id).title(book.title).author(book.author).build());
+            if (page.size() == LOAD_PAGE_SIZE || !books.hasNext()) {
+                indexAll(page);
+                page.clear();
+            }
+        }
+
+        long expected = repository.count();
+        if (expected != size()) {
+            log.info("Search segment {} has {} books but the database has {}, rebuilding it", file, size(), expected);
+            return false;
+        }
+        return true;
+    }
+
+    private void rebuild() throws IOException {
+        synchronized (flushMonitor) {
+            Instant checkpoint = Instant.now();
+            Path file = nextSegmentFile();
+            SegmentWriter.write(file, new DatabaseBooks(new BookFilter()), checkpoint);
+            replaceAll(DiskSegment.open(file));
+            deleteSegmentsBefore(file);
+        }
+    }
+
+    private void replaceAll(DiskSegment segment) {
+        lock.writeLock().lock();
+        try {
+            base = segment;
+            flushing.clear();
+            active = new MemorySegment();
+            bookCount = segment.bookCount();
+            totalLength = segment.totalLength();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void scheduleFlushIfNeeded() {
+        boolean full;
+        lock.readLock().lock();
+        try {
+            full = active.changeCount() >= flushThreshold;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (full && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                try {
+                    flush();
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not flush the search index, the changes stay in memory", e);
+                } finally {
+                    flushScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Takes the current version of the book out of the statistics. Called with
+     * the write lock held.
+     */
+    private void forget(long bookId) {
+        List<Segment> segments = segments();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            int length = segment.length(bookId);
+            if (length >= 0) {
+                bookCount--;
+                totalLength -= length;
+                return;
+            }
+            if (segment.shadows(bookId)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Segments from oldest to newest. Called with the lock held.
+     */
+    private List<Segment> segments() {
+        List<Segment> segments = new ArrayList<>(flushing.size() + 2);
+        if (base != null) {
+            segments.add(base);
+        }
+        segments.addAll(flushing);
+        segments.add(active);
+        return segments;
+    }
+
+    private static boolean isLive(long bookId, int segment, List<? extends Segment> segments) {
+        for (int newer = segment + 1; newer < segments.size(); newer++) {
+            if (segments.get(newer).shadows(bookId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Expansion> expand(String word, boolean last, List<Segment> segments) {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put(word, EXACT_WEIGHT);
+        boolean exact = false;
+        for (Segment segment : segments) {
+            Postings postings = segment.postings(word);
+            exact |= postings != null && postings.size() > 0;
+            if (last && word.length() >= MIN_PREFIX_LENGTH) {
+                segment.prefixTerms(word, MAX_EXPANSIONS, term -> weights.merge(term, PREFIX_WEIGHT, Math::max));
+            }
+        }
+        if (!exact && word.length() >= MIN_FUZZY_LENGTH && !TextAnalyzer.isNumber(word)) {
+            Map<String, Double> similar = new HashMap<>();
+            for (Segment segment : segments) {
+                segment.similarTerms(word, MIN_SIMILARITY, similar);
+            }
+            similar.forEach((term, similarity) -> weights.merge(term, FUZZY_WEIGHT * similarity, Math::max));
+        }
+
+        List<Expansion> expansions = new ArrayList<>();
+        weights.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(MAX_EXPANSIONS)
+                .forEach(entry -> {
+                    Postings[] postings = new Postings[segments.size()];
+                    long documentFrequency = 0;
+                    for (int i = 0; i < postings.length; i++) {
+                        postings[i] = segments.get(i).postings(entry.getKey());
+                        documentFrequency += postings[i] == null ? 0 : postings[i].size();
+                    }
+                    if (documentFrequency > 0) {
+                        expansions.add(new Expansion(entry.getValue(), postings, documentFrequency,
+                                Math.max(bookCount, documentFrequency)));
+                    }
+                });
+        return expansions;
+    }
+
+    private static long postingCount(List<Expansion> expansions) {
+        long count = 0;
+        for (Expansion expansion : expansions) {
+            count += expansion.documentFrequency;
+        }
+        return count;
+    }
+
+    private static List<Long> top(Collection<Candidate> candidates, int limit) {
+        Comparator<Candidate> ranking = Comparator.<Candidate>comparingDouble(candidate -> candidate.score)
+                .reversed()
+                .thenComparingLong(candidate -> candidate.bookId);
+        PriorityQueue<Candidate> worstFirst = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (Candidate candidate : candidates) {
+            worstFirst.add(candidate);
+            if (worstFirst.size() > limit) {
+                worstFirst.poll();
+            }
+        }
+        List<Candidate> best = new ArrayList<>(worstFirst);
+        best.sort(ranking);
+        List<Long> ids = new ArrayList<>(best.size());
+        for (Candidate candidate : best) {
+            ids.add(candidate.bookId);
+        }
+        return ids;
+    }
+
+    /**
+     * Books of the segment on disk that are not hidden by the segments being
+     * flushed, merged with the books of the latter, newest version first.
+     */
+    private static Iterator<IndexedBook> merge(DiskSegment base, List<MemorySegment> frozen) {
+        TreeMap<Long, IndexedBook> changed = new TreeMap<>();
+        for (int i = frozen.size() - 1; i >= 0; i--) {
+            Iterator<IndexedBook> books = frozen.get(i).books();
+            while (books.hasNext()) {
+                IndexedBook book = books.next();
+                if (isLive(book.id, i, frozen)) {
+                    changed.putIfAbsent(book.id, book);
+                }
+            }
+        }
+        Iterator<IndexedBook> kept = base == null ? Collections.emptyIterator() : base.books();
+        Iterator<IndexedBook> added = changed.values().iterator();
+        return new Iterator<IndexedBook>() {
+            private IndexedBook nextKept = advance(kept);
+            private IndexedBook nextAdded = added.hasNext() ? added.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextKept != null || nextAdded != null;
+            }
+
+            @Override
+            public IndexedBook next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                IndexedBook book;
+                if (nextAdded == null || (nextKept != null && nextKept.id < nextAdded.id)) {
+                    book = nextKept;
+                    nextKept = advance(kept);
+                } else {
+                    book = nextAdded;
+                    nextAdded = added.hasNext() ? added.next() : null;
+                }
+                return book;
+            }
+
+            private IndexedBook advance(Iterator<IndexedBook> books) {
+                while (books.hasNext()) {
+                    IndexedBook book = books.next();
+                    if (frozen.stream().noneMatch(segment -> segment.shadows(book.id))) {
+                        return book;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    private Path nextSegmentFile() {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, ++generation, SEGMENT_SUFFIX));
+    }
+
+    private Path latestSegmentFile() throws IOException {
+        Path latest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                if (latest == null || file.getFileName().toString().compareTo(latest.getFileName().toString()) > 0) {
+                    latest = file;
+                }
+            }
+        }
+        if (latest != null) {
+            String name = latest.getFileName().toString();
+            generation = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        }
+        return latest;
+    }
+
+    private void deleteSegmentsBefore(Path current) throws IOException {
+        String currentName = current.getFileName().toString();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+            for (Path file : files) {
+                if (file.getFileName().toString().compareTo(currentName) < 0) {
+                    // Safe while searches still read the old mapping: the pages
+                    // stay valid until the buffer is collected.
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Matching books read page by page, by ascending id.
+     */
+    private final class DatabaseBooks implements Iterator<IndexedBook> {
+        private final BookFilter filter;
+        private Iterator<BookSummary> page = Collections.emptyIterator();
+        private long afterId;
+        private boolean lastPage;
+
+        DatabaseBooks(BookFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !lastPage) {
+                List<BookSummary> books = repository.findSummaries(filter, afterId, LOAD_PAGE_SIZE);
+                lastPage = books.size() < LOAD_PAGE_SIZE;
+                page = books.iterator();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public IndexedBook next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BookSummary book = page.next();
+            afterId = book.getId();
+            return new IndexedBook(book.getId(), book.getTitle(), book.getAuthor());
+        }
+    }
+
+    /**
+     * A term a query word expands to, with the weight of that kind of match.
+     */
+    private static final class Expansion {
+        final double weight;
+        /**
+         * Postings of the term in each segment, {@code null} where it is absent.
+         */
+        final Postings[] postings;
+        final long documentFrequency;
+        final double idf;
+
+        Expansion(double weight, Postings[] postings, long documentFrequency, long bookCount) {
+            this.weight = weight;
+            this.postings = postings;
+            this.documentFrequency = documentFrequency;
+            this.idf = Math.log(1 + (bookCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        }
+
+        double score(int frequency, int length, double averageLength) {
+            double normalization = K1 * (1 - B + B * length / averageLength);
+            return weight * idf * frequency * (K1 + 1) / (frequency + normalization);
+        }
+    }
+
+    private static final class Candidate {
+        final long bookId;
+        final int length;
+        /**
+         * Segment holding the live version of the book.
+         */
+        int segment;
+        double score;
+        double wordScore;
+
+        Candidate(long bookId, int length) {
+            this.bookId = bookId;
+            this.length = length;
+        }
+
+        void endWord() {
+            score += wordScore;
+            wordScore = 0;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package in.gilsondev.libraryapi.service.search;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Part of the search index. Segments are stacked from oldest to newest; a newer
+ * segment that holds or deletes a book hides that book in the older ones.
+ */
+interface Segment {
+    int bookCount();
+
+    long totalLength();
+
+    /**
+     * Length of the book in this segment, or -1 if the segment does not hold it.
+     */
+    int length(long bookId);
+
+    /**
+     * Whether this segment holds or deletes the book, hiding it in older segments.
+     */
+    boolean shadows(long bookId);
+
+    /**
+     * Postings of the term, or {@code null} if no book in this segment has it.
+     */
+    Postings postings(String term);
+
+    /**
+     * Hands the terms starting with {@code prefix} to {@code consumer}, in term
+     * order, stopping after {@code max} terms.
+     */
+    void prefixTerms(String prefix, int max, Consumer<String> consumer);
+
+    /**
+     * Puts in {@code similar} the terms sharing at least {@code minSimilarity}
+     * (Jaccard index) of their trigrams with {@code term}.
+     */
+    void similarTerms(String term, double minSimilarity, Map<String, Double> similar);
+
+    /**
+     * Books held by this segment, ordered by id.
+     */
+    Iterator<IndexedBook> books();
+}
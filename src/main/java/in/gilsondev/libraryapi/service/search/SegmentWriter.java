@@ -0,0 +1,248 @@
+package in.gilsondev.libraryapi.service.search;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes a {@link DiskSegment} file. The whole segment is built in memory, in
+ * primitive arrays, and written to a temporary file that is then moved over
+ * {@code file}, so a crash never leaves a half-written segment behind.
+ * <p>
+ * Layout, all numbers big-endian:
+ * <pre>
+ * header    magic, format version, checkpoint, book count, total length,
+ *           term count, trigram count and the offset of every section below
+ * books     (long id, int length, int text position), ordered by id
+ * text      (int length, UTF-8 bytes) of the title then the author of each book
+ * terms     (int string position, int string length, int first posting,
+ *           int posting count), ordered by the UTF-8 bytes of the term
+ * strings   UTF-8 bytes of the terms
+ * postings  (long book id, int frequency), grouped by term, ordered by book id
+ * trigrams  (long trigram, int first ordinal, int ordinal count), ordered by trigram
+ * ordinals  int positions in the term table of the terms having each trigram
+ * </pre>
+ */
+final class SegmentWriter {
+    static final int MAGIC = 0x4C425358;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int BOOK_ENTRY_SIZE = 16;
+    static final int TERM_ENTRY_SIZE = 16;
+    static final int POSTING_ENTRY_SIZE = 12;
+    static final int TRIGRAM_ENTRY_SIZE = 16;
+
+    private SegmentWriter() {
+    }
+
+    /**
+     * Writes the books, which must come ordered by id, to {@code file}.
+     *
+     * @param checkpoint time up to which the segment is known to reflect the
+     *                   database, used to catch up when it is loaded again
+     */
+    static void write(Path file, Iterator<IndexedBook> books, Instant checkpoint) throws IOException {
+        LongArray bookIds = new LongArray(1024);
+        IntArray lengths = new IntArray(1024);
+        IntArray textPositions = new IntArray(1024);
+        ByteArrayOutputStream textBytes = new ByteArrayOutputStream();
+        DataOutputStream text = new DataOutputStream(textBytes);
+        Map<String, PostingsBuilder> postingsByTerm = new HashMap<>();
+        long totalLength = 0;
+
+        while (books.hasNext()) {
+            IndexedBook book = books.next();
+            bookIds.add(book.id);
+            lengths.add(book.length);
+            textPositions.add(text.size());
+            writeString(text, book.title);
+            writeString(text, book.author);
+            totalLength += book.length;
+            book.frequencies.forEach((term, frequency) ->
+                    postingsByTerm.computeIfAbsent(term, key -> new PostingsBuilder()).add(book.id, frequency));
+        }
+
+        Term[] terms = new Term[postingsByTerm.size()];
+        int termCount = 0;
+        for (Map.Entry<String, PostingsBuilder> entry : postingsByTerm.entrySet()) {
+            terms[termCount++] = new Term(entry.getKey(), entry.getValue());
+        }
+        postingsByTerm.clear();
+        Arrays.sort(terms, (left, right) -> compareBytes(left.bytes, right.bytes));
+
+        TreeMap<Long, IntArray> ordinalsByTrigram = new TreeMap<>();
+        int stringsSize = 0;
+        long postingCount = 0;
+        for (int ordinal = 0; ordinal < terms.length; ordinal++) {
+            stringsSize += terms[ordinal].bytes.length;
+            postingCount += terms[ordinal].postings.bookIds.size;
+            for (long trigram : TextAnalyzer.trigrams(terms[ordinal].term)) {
+                ordinalsByTrigram.computeIfAbsent(trigram, key -> new IntArray(4)).add(ordinal);
+            }
+        }
+        long ordinalCount = 0;
+        for (IntArray ordinals : ordinalsByTrigram.values()) {
+            ordinalCount += ordinals.size;
+        }
+
+        long booksOffset = HEADER_SIZE;
+        long textOffset = booksOffset + (long) bookIds.size * BOOK_ENTRY_SIZE;
+        long termsOffset = textOffset + text.size();
+        long stringsOffset = termsOffset + (long) terms.length * TERM_ENTRY_SIZE;
+        long postingsOffset = stringsOffset + stringsSize;
+        long trigramsOffset = postingsOffset + postingCount * POSTING_ENTRY_SIZE;
+        long ordinalsOffset = trigramsOffset + (long) ordinalsByTrigram.size() * TRIGRAM_ENTRY_SIZE;
+        long end = ordinalsOffset + ordinalCount * Integer.BYTES;
+        if (end > Integer.MAX_VALUE) {
+            throw new IOException("Search segment of " + end + " bytes is too large to be mapped");
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary),
+                1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(checkpoint.toEpochMilli());
+            out.writeInt(bookIds.size);
+            out.writeLong(totalLength);
+            out.writeInt(terms.length);
+            out.writeInt(ordinalsByTrigram.size());
+            for (long offset : new long[]{booksOffset, textOffset, termsOffset, stringsOffset, postingsOffset,
+                    trigramsOffset, ordinalsOffset}) {
+                out.writeInt((int) offset);
+            }
+
+            for (int i = 0; i < bookIds.size; i++) {
+                out.writeLong(bookIds.values[i]);
+                out.writeInt(lengths.values[i]);
+                out.writeInt(textPositions.values[i]);
+            }
+            textBytes.writeTo(out);
+
+            int stringPosition = 0;
+            int firstPosting = 0;
+            for (Term term : terms) {
+                out.writeInt(stringPosition);
+                out.writeInt(term.bytes.length);
+                out.writeInt(firstPosting);
+                out.writeInt(term.postings.bookIds.size);
+                stringPosition += term.bytes.length;
+                firstPosting += term.postings.bookIds.size;
+            }
+            for (Term term : terms) {
+                out.write(term.bytes);
+            }
+            for (Term term : terms) {
+                PostingsBuilder postings = term.postings;
+                for (int i = 0; i < postings.bookIds.size; i++) {
+                    out.writeLong(postings.bookIds.values[i]);
+                    out.writeInt(postings.frequencies.values[i]);
+                }
+            }
+
+            int firstOrdinal = 0;
+            for (Map.Entry<Long, IntArray> trigram : ordinalsByTrigram.entrySet()) {
+                out.writeLong(trigram.getKey());
+                out.writeInt(firstOrdinal);
+                out.writeInt(trigram.getValue().size);
+                firstOrdinal += trigram.getValue().size;
+            }
+            for (IntArray ordinals : ordinalsByTrigram.values()) {
+                for (int i = 0; i < ordinals.size; i++) {
+                    out.writeInt(ordinals.values[i]);
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Unsigned lexicographic order of UTF-8 bytes, which is also the code point
+     * order of the terms.
+     */
+    static int compareBytes(byte[] left, byte[] right) {
+        int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++) {
+            int difference = (left[i] & 0xFF) - (right[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return left.length - right.length;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static final class Term {
+        final String term;
+        final byte[] bytes;
+        final PostingsBuilder postings;
+
+        Term(String term, PostingsBuilder postings) {
+            this.term = term;
+            this.bytes = term.getBytes(StandardCharsets.UTF_8);
+            this.postings = postings;
+        }
+    }
+
+    private static final class PostingsBuilder {
+        final LongArray bookIds = new LongArray(1);
+        final IntArray frequencies = new IntArray(1);
+
+        void add(long bookId, int frequency) {
+            bookIds.add(bookId);
+            frequencies.add(frequency);
+        }
+    }
+
+    private static final class LongArray {
+        long[] values;
+        int size;
+
+        LongArray(int capacity) {
+            values = new long[capacity];
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static final class IntArray {
+        int[] values;
+        int size;
+
+        IntArray(int capacity) {
+            values = new int[capacity];
+        }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
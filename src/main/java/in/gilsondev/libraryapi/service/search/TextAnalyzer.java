@@ -0,0 +1,88 @@
+package in.gilsondev.libraryapi.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns titles, authors and queries into index terms: accents are stripped,
+ * letters are lower-cased and anything that is not a letter or a digit splits
+ * terms, so "Memórias Póstumas" and "memorias-postumas" give the same terms.
+ */
+final class TextAnalyzer {
+    private static final char TRIGRAM_PADDING = '$';
+
+    private TextAnalyzer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean tokenChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Distinct trigrams of the term padded with {@code $} on both sides, each
+     * packed as three 16-bit chars, in ascending order. A term of n chars has at
+     * most n trigrams.
+     */
+    static long[] trigrams(String term) {
+        String padded = TRIGRAM_PADDING + term + TRIGRAM_PADDING;
+        long[] trigrams = new long[padded.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * Jaccard index of two trigram sets of the given sizes sharing {@code shared}
+     * trigrams.
+     */
+    static double similarity(int shared, int trigrams, int otherTrigrams) {
+        return shared / (double) (trigrams + otherTrigrams - shared);
+    }
+
+    static boolean isNumber(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isDigit(term.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,274 @@
+package in.gilsondev.libraryapi.service.writebehind;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.entities.BookChange;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import in.gilsondev.libraryapi.service.outbox.BookOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind of book updates, enabled with
+ * {@code library.write-behind.enabled=true}.
+ * <p>
+ * {@link #update(Book)} checks the version, logs the new state to the
+ * {@link UpdateLog} and keeps it in memory, where {@link #get(Long)} serves it
+ * to later reads. Every {@code library.write-behind.flush-interval}, the
+ * latest state of each updated book is written in one transaction, so many
+ * updates of the same book cost a single statement. At startup, the updates
+ * left in the log by a crash are applied before requests are taken.
+ * <p>
+ * The books are written with {@link BookRepository#updateIfOlder(Book, long)}:
+ * an update of a book deleted in the meantime is dropped, and so is one
+ * breaking a constraint, such as a duplicated ISBN, which is logged and counted
+ * in {@code book.updates.dropped}. Listing, export, search and the change feed
+ * of the {@link BookOutbox} see the update once it is flushed. Only this instance may update the books while the mode
+ * is on.
+ */
+@Component
+public class BookWriteBehind implements SmartInitializingSingleton, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(BookWriteBehind.class);
+
+    private final BookRepository repository;
+    private final BookOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String directory;
+    private final Duration flushInterval;
+    private final Counter dropped;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    /**
+     * Held shared while an update is logged and exclusively while the log is
+     * rolled, so every update is either in the flushed batch or in the new file.
+     */
+    private final ReentrantReadWriteLock logLock = new ReentrantReadWriteLock();
+    private final Object flushMonitor = new Object();
+    private UpdateLog updateLog;
+    private ScheduledExecutorService flusher;
+
+    public BookWriteBehind(BookRepository repository,
+                           BookOutbox outbox,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${library.write-behind.enabled:false}") boolean enabled,
+                           @Value("${library.write-behind.directory:write-behind}") String directory,
+                           @Value("${library.write-behind.flush-interval:200ms}") Duration flushInterval) {
+        this.repository = repository;
+        this.outbox = outbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.directory = directory;
+        this.flushInterval = flushInterval;
+        this.dropped = meterRegistry.counter("book.updates.dropped");
+        Gauge.builder("book.updates.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accepts {@code book} as the next version of the stored book and returns it
+     * with its new version, once it is durable in the log. Fails with
+     * {@link ObjectOptimisticLockingFailureException} if {@code book} does not
+     * carry the current version, or if the book does not exist.
+     */
+    public Book update(Book book) {
+        Long id = book.getId();
+        // Read outside the map's lock in the common case.
+        Long storedVersion = pending.containsKey(id) ? null : storedVersion(id);
+
+        Book[] accepted = new Book[1];
+        long[] position = new long[1];
+        logLock.readLock().lock();
+        try {
+            pending.compute(id, (key, current) -> {
+                Long version = current != null ? current.book.getVersion()
+                        : storedVersion != null ? storedVersion : storedVersion(id);
+                if (version == null || !Objects.equals(version, book.getVersion())) {
+                    throw new ObjectOptimisticLockingFailureException(Book.class, id);
+                }
+                accepted[0] = book.toBuilder().version(version + 1).updatedAt(Instant.now()).build();
+                position[0] = updateLog.append(accepted[0]);
+                return new Pending(accepted[0], current == null ? version : current.baseVersion);
+            });
+            updateLog.sync(position[0]);
+        } finally {
+            logLock.readLock().unlock();
+        }
+        return accepted[0].toBuilder().build();
+    }
+
+    /**
+     * Returns a copy of the book as updated, if it has updates not flushed yet.
+     */
+    public Optional<Book> get(Long id) {
+        Pending entry = pending.get(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.book.toBuilder().build());
+    }
+
+    /**
+     * Forgets the updates not flushed yet of a book about to be deleted.
+     */
+    public void discard(Long id) {
+        pending.remove(id);
+    }
+
+    /**
+     * Writes the latest state of every updated book in one transaction. If the
+     * transaction fails, the updates stay in memory and in the log for the next
+     * flush.
+     */
+    public void flush() throws IOException {
+        synchronized (flushMonitor) {
+            List<Pending> batch;
+            logLock.writeLock().lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                updateLog.roll();
+            } finally {
+                logLock.writeLock().unlock();
+            }
+
+            apply(batch);
+            for (Pending entry : batch) {
+                // Later updates were made on top of the version just written.
+                pending.computeIfPresent(entry.book.getId(), (id, current) ->
+                        current == entry ? null : new Pending(current.book, entry.book.getVersion()));
+            }
+            updateLog.deleteRolled();
+        }
+    }
+
+    /**
+     * Applies the updates left in the log before the application takes
+     * requests, then starts flushing periodically.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            updateLog = UpdateLog.open(Paths.get(directory));
+            List<Book> logged = updateLog.readRolled();
+            for (Book book : logged) {
+                pending.merge(book.getId(), new Pending(book, book.getVersion() - 1),
+                        (previous, next) -> new Pending(next.book, previous.baseVersion));
+            }
+            if (!logged.isEmpty()) {
+                log.info("Applying {} logged updates of {} books", logged.size(), pending.size());
+            }
+            flush();
+            updateLog.deleteRolled();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the update log in " + directory, e);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not flush book updates, retrying in {} ms", interval, e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        if (!enabled || updateLog == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(1, TimeUnit.MINUTES);
+        flush();
+        updateLog.close();
+    }
+
+    private Long storedVersion(Long id) {
+        return repository.findVersion(id).map(BookVersion::getVersion).orElse(null);
+    }
+
+    private void apply(List<Pending> batch) {
+        try {
+            transactionTemplate.execute(status -> {
+                batch.forEach(this::write);
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Write them one by one so that only the offending updates are lost.
+            for (Pending entry : batch) {
+                try {
+                    transactionTemplate.execute(status -> {
+                        write(entry);
+                        return null;
+                    });
+                } catch (DataIntegrityViolationException rejected) {
+                    dropped.increment();
+                    log.error("Dropping update of book {} to version {}", entry.book.getId(),
+                            entry.book.getVersion(), rejected);
+                }
+            }
+        }
+    }
+
+    private void write(Pending entry) {
+        if (repository.updateIfOlder(entry.book, entry.baseVersion) == 0) {
+            log.debug("Update of book {} to version {} was already applied or the book was deleted",
+                    entry.book.getId(), entry.book.getVersion());
+        } else {
+            outbox.append(BookChange.Type.UPDATED, entry.book);
+        }
+    }
+
+    /**
+     * Latest state of a book, made by updates on top of {@code baseVersion}.
+     */
+    private static final class Pending {
+        final Book book;
+        final long baseVersion;
+
+        Pending(Book book, long baseVersion) {
+            this.book = book;
+            this.baseVersion = baseVersion;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package in.gilsondev.libraryapi.service.writebehind;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the book updates accepted by {@link BookWriteBehind}, so
+ * they can be applied after a crash.
+ * <p>
+ * Records go to the newest file; {@link #roll()} starts a new one once the
+ * updates logged so far are about to be written to the database, and
+ * {@link #deleteRolled()} drops the older files after they were. Each record
+ * is framed as {@code length, CRC32, payload}, so a record torn by a crash is
+ * detected and ignored along with anything after it.
+ * <p>
+ * {@link #sync(long)} makes the log durable up to a position. Callers waiting
+ * for it at the same time share a single {@code fsync}.
+ */
+final class UpdateLog implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(UpdateLog.class);
+
+    private static final String FILE_PREFIX = "updates-";
+    private static final String FILE_SUFFIX = ".log";
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private final Path directory;
+    private final Object syncMonitor = new Object();
+
+    // Guarded by this.
+    private FileChannel channel;
+    private long generation;
+    private long written;
+
+    // Guarded by syncMonitor.
+    private long synced;
+
+    private UpdateLog(Path directory, long generation) throws IOException {
+        this.directory = directory;
+        this.generation = generation;
+        this.channel = create(generation);
+    }
+
+    /**
+     * Opens a new file after the ones left in {@code directory}, which
+     * {@link #readRolled()} then returns.
+     */
+    static UpdateLog open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long generation = 0;
+        for (Path file : files(directory)) {
+            generation = Math.max(generation, generationOf(file));
+        }
+        return new UpdateLog(directory, generation + 1);
+    }
+
+    /**
+     * Appends {@code book} and returns the position {@link #sync(long)} must
+     * reach for it to be durable.
+     */
+    synchronized long append(Book book) {
+        ByteBuffer frame = encode(book);
+        try {
+            while (frame.hasRemaining()) {
+                written += channel.write(frame);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the update log in " + directory, e);
+        }
+        return written;
+    }
+
+    void sync(long position) {
+        synchronized (syncMonitor) {
+            if (synced >= position) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = written;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not sync the update log in " + directory, e);
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * Closes the current file and starts a new one. Must not run concurrently
+     * with {@link #append(Book)} or {@link #sync(long)}.
+     */
+    void roll() throws IOException {
+        synchronized (syncMonitor) {
+            synchronized (this) {
+                channel.force(false);
+                channel.close();
+                channel = create(++generation);
+                synced = written;
+            }
+        }
+    }
+
+    /**
+     * Reads the records of the files before the current one, oldest first.
+     */
+    synchronized List<Book> readRolled() throws IOException {
+        List<Path> rolled = new ArrayList<>();
+        for (Path file : files(directory)) {
+            if (generationOf(file) < generation) {
+                rolled.add(file);
+            }
+        }
+        rolled.sort((first, second) -> Long.compare(generationOf(first), generationOf(second)));
+
+        List<Book> books = new ArrayList<>();
+        for (Path file : rolled) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining() || checksum != checksum(buffer.array(),
+                        buffer.position(), length)) {
+                    log.warn("Ignoring the end of {} from offset {}: the record is incomplete", file,
+                            buffer.position() - FRAME_HEADER_SIZE);
+                    break;
+                }
+                books.add(decode(buffer.array(), buffer.position(), length));
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return books;
+    }
+
+    synchronized void deleteRolled() throws IOException {
+        for (Path file : files(directory)) {
+            if (generationOf(file) < generation) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private FileChannel create(long generation) throws IOException {
+        Path file = directory.resolve(String.format("%s%019d%s", FILE_PREFIX, generation, FILE_SUFFIX));
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static List<Path> files(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    private static ByteBuffer encode(Book book) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(book.getId());
+            out.writeLong(book.getVersion());
+            out.writeLong(book.getUpdatedAt().getEpochSecond());
+            out.writeInt(book.getUpdatedAt().getNano());
+            writeNullable(out, book.getTitle());
+            writeNullable(out, book.getAuthor());
+            writeNullable(out, book.getIsbn());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        int length = frame.capacity() - FRAME_HEADER_SIZE;
+        frame.putInt(0, length);
+        frame.putInt(4, checksum(frame.array(), FRAME_HEADER_SIZE, length));
+        return frame;
+    }
+
+    private static Book decode(byte[] bytes, int offset, int length) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            return Book.builder()
+                    .id(in.readLong())
+                    .version(in.readLong())
+                    .updatedAt(Instant.ofEpochSecond(in.readLong(), in.readInt()))
+                    .title(readNullable(in))
+                    .author(readNullable(in))
+                    .isbn(readNullable(in))
+                    .build();
+        } catch (EOFException e) {
+            throw new IOException("Malformed update log record", e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
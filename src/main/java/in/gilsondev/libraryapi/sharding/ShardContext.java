@@ -0,0 +1,45 @@
+package in.gilsondev.libraryapi.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the statements of the current thread go to. Threads with no shard
+ * selected use the first one.
+ */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Returns the selected shard, or {@code null} if there is none.
+     */
+    public static Integer current() {
+        return SHARD.get();
+    }
+
+    /**
+     * Runs {@code task} with its statements sent to {@code shard}.
+     */
+    public static <T> T call(int shard, Supplier<T> task) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+
+    public static void run(int shard, Runnable task) {
+        call(shard, () -> {
+            task.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package in.gilsondev.libraryapi.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the books stored on another shard than the one of their ISBN, after
+ * sharding was enabled or shards were added.
+ * <p>
+ * Each shard is scanned in id order, {@code batchSize} books at a time. The
+ * books of a batch that belong elsewhere are written to their shard, replacing
+ * any copy left there by an interrupted run, and then deleted from this one, so
+ * running it again after a failure finishes the job. Nothing else may write to
+ * the books meanwhile: an update made between the copy and the delete is lost.
+ * <p>
+ * Books stored before sharding was enabled have plain sequence numbers as ids,
+ * which do not end with the bucket of their ISBN, so they could not be found
+ * by id. They get a {@link Shards#renumberedId(long, int) new id} as they are
+ * moved, or in place when they stay. The rebalancer must therefore run once
+ * when sharding is enabled on an existing database, before the application
+ * serves requests: until then, lookups by id miss those books and their ISBNs
+ * could be stored again on another shard.
+ */
+public class ShardRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final String SELECT = "select id, title, author, isbn, version, updated_at, tombstone"
+            + " from book where id > ? order by id";
+    private static final String DELETE = "delete from book where id = ?";
+    private static final String RENUMBER = "update book set id = ? where id = ?";
+    private static final String INSERT = "insert into book"
+            + " (id, title, author, isbn, version, updated_at, tombstone) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final Shards shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ShardRebalancer(ShardRoutingDataSource dataSource, Shards shards, int batchSize) {
+        this.shards = shards;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setMaxRows(batchSize);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Returns the number of books moved or renumbered.
+     */
+    public long rebalance() {
+        long moved = 0;
+        for (int shard : shards.all()) {
+            long movedFromShard = drain(shard);
+            log.info("Moved {} books out of shard {}", movedFromShard, shard);
+            moved += movedFromShard;
+        }
+        return moved;
+    }
+
+    private long drain(int source) {
+        long moved = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<Object[]> rows = ShardContext.call(source, () -> jdbcTemplate.query(SELECT,
+                    (result, row) -> new Object[]{result.getLong(1), result.getString(2), result.getString(3),
+                            result.getString(4), result.getObject(5), result.getTimestamp(6),
+                            result.getLong(7)},
+                    from));
+            if (rows.isEmpty()) {
+                return moved;
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+            // Renumbered books move past the scan, and are skipped when it reaches them.
+
+            Map<Integer, List<Object[]>> misplaced = new LinkedHashMap<>();
+            List<Object[]> renumbered = new ArrayList<>();
+            List<Object[]> previousIds = new ArrayList<>();
+            for (Object[] row : rows) {
+                long id = (Long) row[0];
+                String isbn = (String) row[3];
+                int bucket = Shards.bucketOf(isbn);
+                int target = shards.shardOfIsbn(isbn);
+                if (Shards.bucketOf(id) != bucket) {
+                    row[0] = Shards.renumberedId(id, bucket);
+                    if (target == source) {
+                        renumbered.add(new Object[]{row[0], id});
+                    }
+                }
+                if (target != source) {
+                    misplaced.computeIfAbsent(target, shard -> new ArrayList<>()).add(row);
+                    previousIds.add(new Object[]{id});
+                }
+            }
+            if (!renumbered.isEmpty()) {
+                ShardContext.run(source, () -> jdbcTemplate.batchUpdate(RENUMBER, renumbered));
+                moved += renumbered.size();
+            }
+            for (Map.Entry<Integer, List<Object[]>> target : misplaced.entrySet()) {
+                List<Object[]> books = target.getValue();
+                ShardContext.run(target.getKey(), () -> transactionTemplate.execute(status -> {
+                    jdbcTemplate.batchUpdate(DELETE, ids(books));
+                    jdbcTemplate.batchUpdate(INSERT, books);
+                    return null;
+                }));
+                moved += books.size();
+            }
+            if (!previousIds.isEmpty()) {
+                ShardContext.run(source, () -> jdbcTemplate.batchUpdate(DELETE, previousIds));
+            }
+        }
+    }
+
+    private static List<Object[]> ids(List<Object[]> books) {
+        List<Object[]> ids = new ArrayList<>(books.size());
+        for (Object[] book : books) {
+            ids.add(new Object[]{book[0]});
+        }
+        return ids;
+    }
+}
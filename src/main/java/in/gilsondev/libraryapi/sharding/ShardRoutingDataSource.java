@@ -0,0 +1,53 @@
+package in.gilsondev.libraryapi.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data source handing out connections to the {@link ShardContext#current()
+ * selected shard}, or to the first one when none is, as for the schema of
+ * the first shard and the health check.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = new ArrayList<>(shards);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return current().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return current().getConnection(username, password);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    private DataSource current() {
+        Integer shard = ShardContext.current();
+        return shards.get(shard == null ? 0 : shard);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (DataSource shard : shards) {
+            if (shard instanceof Closeable) {
+                ((Closeable) shard).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package in.gilsondev.libraryapi.sharding;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookImportResult;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Sends each {@code BookService} call to the shard of its book: by ISBN for
+ * {@code save}, by id for the others. Calls over several books are split by
+ * shard and run on all of them at once: {@code getByIds}, {@code deleteByIds}
+ * and {@code importBooks} merge the results, and {@code exportBooks} merges
+ * the streams of the shards back into id order. The rest ({@code findBooks},
+ * {@code searchBooks}) goes through unrouted, to the repository's own
+ * scatter-gather or to the in-memory indexes.
+ * <p>
+ * An import commits separately on each shard: when one of them fails, the
+ * books of the others are kept.
+ */
+public class ShardRoutingInterceptor implements MethodInterceptor {
+    /**
+     * Books read ahead from each shard by an export.
+     */
+    static final int EXPORT_BUFFER_SIZE = 500;
+
+    private static final Object END = new Object();
+
+    private final Shards shards;
+
+    public ShardRoutingInterceptor(Shards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ShardContext.current() != null) {
+            return invocation.proceed();
+        }
+        Object[] arguments = invocation.getArguments();
+        switch (invocation.getMethod().getName()) {
+            case "save":
+                return onShard(shards.shardOfIsbn(((Book) arguments[0]).getIsbn()), invocation);
+            case "getById":
+            case "getVersion":
+                return arguments[0] == null ? invocation.proceed()
+                        : onShard(shards.shardOfId((Long) arguments[0]), invocation);
+            case "update":
+            case "delete":
+                Book book = (Book) arguments[0];
+                return book == null || book.getId() == null ? invocation.proceed()
+                        : onShard(shards.shardOfId(book.getId()), invocation);
+            case "getByIds":
+                return getByIds(invocation, (Collection<?>) arguments[0]);
+            case "deleteByIds":
+                return deleteByIds(invocation, (Collection<?>) arguments[0]);
+            case "importBooks":
+                return importBooks(invocation, (List<?>) arguments[0]);
+            case "exportBooks":
+                @SuppressWarnings("unchecked")
+                Consumer<Book> consumer = (Consumer<Book>) arguments[0];
+                exportBooks(invocation, consumer);
+                return null;
+            default:
+                return invocation.proceed();
+        }
+    }
+
+    private static Object onShard(int shard, MethodInvocation invocation) {
+        return ShardContext.call(shard, () -> proceed(invocation));
+    }
+
+    private Map<Long, Book> getByIds(MethodInvocation invocation, Collection<?> ids) {
+        Map<Integer, List<Long>> idsByShard = byShard(ids);
+        Map<Long, Book> books = new HashMap<>(ids.size() * 4 / 3 + 1);
+        if (idsByShard.isEmpty()) {
+            return books;
+        }
+        shards.scatter(idsByShard.keySet(), shard -> proceed(invocation, idsByShard.get(shard)))
+                .values()
+                .forEach(found -> books.putAll(castMap(found)));
+        return books;
+    }
+
+    private List<Long> deleteByIds(MethodInvocation invocation, Collection<?> ids) {
+        Map<Integer, List<Long>> idsByShard = byShard(ids);
+        List<Long> deleted = new ArrayList<>();
+        if (idsByShard.isEmpty()) {
+            return deleted;
+        }
+        for (Object found : shards.scatter(idsByShard.keySet(),
+                shard -> proceed(invocation, idsByShard.get(shard))).values()) {
+            deleted.addAll(castList(found));
+        }
+        return deleted;
+    }
+
+    private Map<Integer, List<Long>> byShard(Collection<?> ids) {
+        Map<Integer, List<Long>> idsByShard = new LinkedHashMap<>();
+        for (Object id : ids) {
+            idsByShard.computeIfAbsent(shards.shardOfId((Long) id), shard -> new ArrayList<>()).add((Long) id);
+        }
+        return idsByShard;
+    }
+
+    private BookImportResult importBooks(MethodInvocation invocation, List<?> books) {
+        Map<Integer, List<Book>> booksByShard = new LinkedHashMap<>();
+        for (Object book : books) {
+            booksByShard.computeIfAbsent(shards.shardOfIsbn(((Book) book).getIsbn()), shard -> new ArrayList<>())
+                    .add((Book) book);
+        }
+        List<Book> imported = new ArrayList<>();
+        List<String> duplicatedIsbns = new ArrayList<>();
+        if (booksByShard.isEmpty()) {
+            return new BookImportResult(imported, duplicatedIsbns);
+        }
+        for (Object result : shards.scatter(booksByShard.keySet(),
+                shard -> proceed(invocation, booksByShard.get(shard))).values()) {
+            imported.addAll(((BookImportResult) result).getImported());
+            duplicatedIsbns.addAll(((BookImportResult) result).getDuplicatedIsbns());
+        }
+        return new BookImportResult(imported, duplicatedIsbns);
+    }
+
+    /**
+     * Each shard exports on its own thread into a bounded queue; the calling
+     * thread hands {@code consumer} the book with the lowest id among the
+     * heads of the queues.
+     */
+    private void exportBooks(MethodInvocation invocation, Consumer<Book> consumer) {
+        List<BlockingQueue<Object>> queues = new ArrayList<>(shards.getCount());
+        List<Future<Object>> exports = new ArrayList<>(shards.getCount());
+        try {
+            for (int shard : shards.all()) {
+                BlockingQueue<Object> queue = new ArrayBlockingQueue<>(EXPORT_BUFFER_SIZE);
+                queues.add(queue);
+                Consumer<Book> enqueue = book -> put(queue, book);
+                exports.add(shards.submit(shard, () -> {
+                    try {
+                        return proceed(invocation, enqueue);
+                    } finally {
+                        put(queue, END);
+                    }
+                }));
+            }
+
+            PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingLong(head -> head.book.getId()));
+            for (int shard = 0; shard < queues.size(); shard++) {
+                next(shard, queues, exports, heads);
+            }
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                consumer.accept(head.book);
+                next(head.shard, queues, exports, heads);
+            }
+        } finally {
+            exports.forEach(export -> export.cancel(true));
+        }
+    }
+
+    /**
+     * Takes the next book of {@code shard}, if it has one left.
+     */
+    private static void next(int shard, List<BlockingQueue<Object>> queues, List<Future<Object>> exports,
+                             PriorityQueue<Head> heads) {
+        Object next;
+        try {
+            next = queues.get(shard).take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while exporting the shards", e);
+        }
+        if (next == END) {
+            // Rethrows what ended the export early.
+            Shards.get(exports.get(shard));
+        } else {
+            heads.add(new Head(shard, (Book) next));
+        }
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            // The merge gave up.
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    private static Object proceed(MethodInvocation invocation, Object... arguments) {
+        try {
+            if (arguments.length == 0) {
+                return invocation.proceed();
+            }
+            return ((ProxyMethodInvocation) invocation).invocableClone(arguments).proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Book> castMap(Object map) {
+        return (Map<Long, Book>) map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> castList(Object list) {
+        return (List<Long>) list;
+    }
+
+    private static final class Head {
+        private final int shard;
+        private final Book book;
+
+        Head(int shard, Book book) {
+            this.shard = shard;
+            this.book = book;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package in.gilsondev.libraryapi.sharding;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.Metadata;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Applies the schema action Hibernate takes on the first shard
+ * ({@code spring.jpa.hibernate.ddl-auto}) to the other shards as well, and
+ * moves the {@code book_seq} sequence of each shard to its own partition.
+ */
+public class ShardSchemaIntegrator implements Integrator {
+    private final int shardCount;
+
+    public ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        Dialect dialect = serviceRegistry.getService(JdbcServices.class).getDialect();
+        ConnectionProvider connections = serviceRegistry.getService(ConnectionProvider.class);
+        for (int shard = 1; shard < shardCount; shard++) {
+            int current = shard;
+            ShardContext.run(shard, () -> {
+                SchemaManagementToolCoordinator.process(metadata, serviceRegistry, sessionFactory.getProperties(),
+                        action -> sessionFactory.addObserver(new DropOnClose(current, action, serviceRegistry)));
+                try {
+                    alignSequence(connections, dialect, current);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Cannot move the sequence of shard " + current, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Restarts the sequence at the start of the shard's partition, past the
+     * numbers the pooled optimizer takes below the value it reads.
+     */
+    private static void alignSequence(ConnectionProvider connections, Dialect dialect, int shard)
+            throws SQLException {
+        long start = Shards.sequenceStart(shard) + Long.parseLong(ShardedIdGenerator.ALLOCATION_SIZE);
+        Connection connection = connections.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            long next;
+            try (ResultSet result = statement.executeQuery(
+                    dialect.getSequenceNextValString(ShardedIdGenerator.SEQUENCE_NAME))) {
+                result.next();
+                next = result.getLong(1);
+            }
+            if (next < start) {
+                statement.execute("alter sequence " + ShardedIdGenerator.SEQUENCE_NAME + " restart with " + start);
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } finally {
+            connections.closeConnection(connection);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    /**
+     * The drop of {@code create-drop}, run on its shard when Hibernate shuts down.
+     */
+    private static final class DropOnClose implements SessionFactoryObserver {
+        private final int shard;
+        private final DelayedDropAction action;
+        private final SessionFactoryServiceRegistry serviceRegistry;
+
+        DropOnClose(int shard, DelayedDropAction action, SessionFactoryServiceRegistry serviceRegistry) {
+            this.shard = shard;
+            this.action = action;
+            this.serviceRegistry = serviceRegistry;
+        }
+
+        @Override
+        public void sessionFactoryClosing(SessionFactory factory) {
+            ShardContext.run(shard, () -> action.perform(serviceRegistry));
+        }
+    }
+}
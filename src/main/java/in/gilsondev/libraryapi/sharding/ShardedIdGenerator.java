@@ -0,0 +1,31 @@
+package in.gilsondev.libraryapi.sharding;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.io.Serializable;
+
+/**
+ * The pooled {@code book_seq} sequence, whose numbers are followed by the
+ * bucket of the book's ISBN when it is inserted into a shard. Without
+ * sharding, ids are the sequence numbers as they are; the
+ * {@link ShardRebalancer} renumbers those books once sharding is enabled.
+ * <p>
+ * The numbers of a pool may come from another shard's sequence; they are
+ * unique all the same, since the sequences start in separate partitions.
+ */
+public class ShardedIdGenerator extends SequenceStyleGenerator {
+    public static final String SEQUENCE_NAME = "book_seq";
+    public static final String ALLOCATION_SIZE = "50";
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Serializable sequence = super.generate(session, object);
+        if (ShardContext.current() == null) {
+            return sequence;
+        }
+        return Shards.bookId(((Number) sequence).longValue(), Shards.bucketOf(((Book) object).getIsbn()));
+    }
+}
@@ -0,0 +1,103 @@
+package in.gilsondev.libraryapi.sharding;
+
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lets {@code BookRepository} be called without a shard for the queries over
+ * the whole table: {@code findSummaries} and {@code findDeletedIds} ask every
+ * shard for its first page and keep the lowest ids of them all, and
+ * {@code count} adds up the counts. {@code purgeDeleted} sends each id to its
+ * shard. Anything else needs a shard, which the service selects.
+ */
+public class ShardedRepositoryInterceptor implements MethodInterceptor {
+    private final Shards shards;
+
+    public ShardedRepositoryInterceptor(Shards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ShardContext.current() != null || invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        switch (invocation.getMethod().getName()) {
+            case "findSummaries":
+                return lowestIds(invocation, (Integer) invocation.getArguments()[2],
+                        Comparator.comparing(BookSummary::getId));
+            case "findDeletedIds":
+                return lowestIds(invocation, ((Pageable) invocation.getArguments()[0]).getPageSize(),
+                        Comparator.comparingLong(Number::longValue));
+            case "purgeDeleted":
+                return purgeDeleted(invocation, (Collection<?>) invocation.getArguments()[0]);
+            case "count":
+                if (invocation.getArguments().length == 0) {
+                    return shards.scatter(shards.all(), shard -> (Long) proceed(invocation))
+                            .values()
+                            .stream()
+                            .mapToLong(Long::longValue)
+                            .sum();
+                }
+                break;
+            case "detach":
+                return invocation.proceed();
+            default:
+                break;
+        }
+        throw new IllegalStateException("BookRepository." + invocation.getMethod().getName()
+                + " needs a shard selected");
+    }
+
+    private <T> List<T> lowestIds(MethodInvocation invocation, int limit, Comparator<T> byId) {
+        List<T> found = new ArrayList<>();
+        for (Object page : shards.scatter(shards.all(), shard -> proceed(invocation)).values()) {
+            @SuppressWarnings("unchecked")
+            List<T> rows = (List<T>) page;
+            found.addAll(rows);
+        }
+        found.sort(byId);
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    private int purgeDeleted(MethodInvocation invocation, Collection<?> ids) {
+        Map<Integer, List<Long>> idsByShard = new LinkedHashMap<>();
+        for (Object id : ids) {
+            idsByShard.computeIfAbsent(shards.shardOfId((Long) id), shard -> new ArrayList<>()).add((Long) id);
+        }
+        if (idsByShard.isEmpty()) {
+            return 0;
+        }
+        return shards.scatter(idsByShard.keySet(), shard -> (Integer) proceed(invocation, idsByShard.get(shard)))
+                .values()
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    /**
+     * Runs the rest of the chain again, once per shard.
+     */
+    private static Object proceed(MethodInvocation invocation, Object... arguments) {
+        try {
+            ProxyMethodInvocation proxyInvocation = (ProxyMethodInvocation) invocation;
+            return (arguments.length == 0 ? proxyInvocation.invocableClone()
+                    : proxyInvocation.invocableClone(arguments)).proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package in.gilsondev.libraryapi.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Where each book lives, and the threads querying several shards at once.
+ * <p>
+ * The ISBN is hashed into one of {@value #BUCKETS} buckets, and the bucket is
+ * mapped to a shard with a jump consistent hash, so every ISBN has a single
+ * shard and adding a shard only moves the buckets the new one takes over,
+ * about {@code 1 / shards} of the books. Book ids end with their bucket
+ * ({@link #bookId(long, int)}), so a book is found from its id alone. The
+ * sequence numbers in front of it are unique across shards: each shard's
+ * sequence starts at its own {@link #sequenceStart(int) partition}. The
+ * partition after the last shard's holds the books stored before sharding was
+ * enabled, once the {@link ShardRebalancer} gave them an id with their bucket
+ * ({@link #renumberedId(long, int)}).
+ */
+public class Shards implements DisposableBean {
+    public static final int BUCKETS = 1024;
+    public static final int MAX_SHARDS = 255;
+    /**
+     * Sequence numbers owned by each shard, and by the renumbered books; ids
+     * stay below 2^63.
+     */
+    static final long SEQUENCE_PARTITION = Long.MAX_VALUE / BUCKETS / (MAX_SHARDS + 1) + 1;
+
+    private final int count;
+    private final ExecutorService executor;
+
+    public Shards(int count) {
+        if (count < 1 || count > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS);
+        }
+        this.count = count;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "shard-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public List<Integer> all() {
+        List<Integer> shards = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    public int shardOfIsbn(String isbn) {
+        return shardOf(bucketOf(isbn), count);
+    }
+
+    public int shardOfId(long id) {
+        return shardOf(bucketOf(id), count);
+    }
+
+    /**
+     * Runs {@code query} on every shard of {@code shards} in parallel, each on a
+     * thread with its shard selected, and returns the results by shard. A single
+     * shard is queried on the calling thread. The first failure is rethrown
+     * once every query has finished.
+     */
+    public <T> Map<Integer, T> scatter(Collection<Integer> shards, IntFunction<T> query) {
+        Map<Integer, T> results = new LinkedHashMap<>();
+        if (shards.size() == 1) {
+            int shard = shards.iterator().next();
+            results.put(shard, ShardContext.call(shard, () -> query.apply(shard)));
+            return results;
+        }
+        Map<Integer, Future<T>> futures = new LinkedHashMap<>();
+        for (int shard : shards) {
+            futures.put(shard, submit(shard, () -> query.apply(shard)));
+        }
+        RuntimeException failure = null;
+        for (Map.Entry<Integer, Future<T>> future : futures.entrySet()) {
+            try {
+                results.put(future.getKey(), get(future.getValue()));
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Runs {@code task} on another thread with {@code shard} selected.
+     */
+    public <T> Future<T> submit(int shard, Callable<T> task) {
+        return executor.submit(() -> ShardContext.call(shard, () -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+    }
+
+    /**
+     * Waits for {@code future} and rethrows what its task threw.
+     */
+    public static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the shards", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public static int bucketOf(String isbn) {
+        if (isbn == null) {
+            return 0;
+        }
+        // String.hashCode is fixed by its specification; the mix (from MurmurHash3) spreads it.
+        int hash = isbn.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash & (BUCKETS - 1);
+    }
+
+    public static int bucketOf(long id) {
+        return (int) (id & (BUCKETS - 1));
+    }
+
+    /**
+     * The id of a book from a sequence number and its bucket.
+     */
+    public static long bookId(long sequence, int bucket) {
+        if (sequence < 0 || sequence >= SEQUENCE_PARTITION * (MAX_SHARDS + 1)) {
+            throw new IllegalStateException("Sequence number " + sequence + " out of range");
+        }
+        return sequence * BUCKETS + bucket;
+    }
+
+    /**
+     * The id of a book stored before sharding was enabled, whose id is a plain
+     * sequence number: the number is moved to the partition no shard's
+     * sequence uses, and followed by {@code bucket}.
+     */
+    public static long renumberedId(long id, int bucket) {
+        if (id < 0 || id >= SEQUENCE_PARTITION) {
+            throw new IllegalStateException("Id " + id + " cannot be renumbered");
+        }
+        return bookId(sequenceStart(MAX_SHARDS) + id, bucket);
+    }
+
+    /**
+     * The first sequence number of {@code shard}.
+     */
+    public static long sequenceStart(int shard) {
+        return shard * SEQUENCE_PARTITION;
+    }
+
+    /**
+     * Jump consistent hash (Lamping and Veach): growing {@code shards} by one
+     * moves a bucket only to the new shard, and only {@code 1 / shards} of them.
+     */
+    static int shardOf(int bucket, int shards) {
+        long key = bucket;
+        long candidate = -1;
+        long next = 0;
+        while (next < shards) {
+            candidate = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((candidate + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) candidate;
+    }
+}
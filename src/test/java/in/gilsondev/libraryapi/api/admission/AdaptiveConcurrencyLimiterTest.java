@@ -0,0 +1,89 @@
+package in.gilsondev.libraryapi.api.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private long now = 1_000_000 * MILLIS;
+
+    @Test
+    @DisplayName("Should reject requests beyond the limit until one is released")
+    public void rejectBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, now);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInflight()).isEqualTo(2);
+
+        limiter.release(MILLIS, now);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should raise the limit while it is used and the latency holds")
+    public void growWithSteadyLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, now);
+
+        for (int window = 0; window < 20; window++) {
+            runWindow(limiter, limiter.getLimit(), 10 * MILLIS);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    @DisplayName("Should not raise the limit while less than half of it is used")
+    public void keepLimitWhenUnderused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, now);
+
+        for (int window = 0; window < 20; window++) {
+            runWindow(limiter, 2, 10 * MILLIS);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should lower the limit when the latency grows")
+    public void shrinkWhenLatencyGrows() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 4, 100, now);
+        for (int window = 0; window < 5; window++) {
+            runWindow(limiter, 50, 10 * MILLIS);
+        }
+        int limitBeforeOverload = limiter.getLimit();
+
+        for (int window = 0; window < 10; window++) {
+            runWindow(limiter, limiter.getLimit(), 100 * MILLIS);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(limitBeforeOverload * 2 / 3);
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(4);
+    }
+
+    /**
+     * Admits {@code concurrency} requests together and releases them with the
+     * given latency once the window is over.
+     */
+    private void runWindow(AdaptiveConcurrencyLimiter limiter, int concurrency, long latency) {
+        int admitted = 0;
+        while (admitted < concurrency && limiter.tryAcquire()) {
+            admitted++;
+        }
+        for (int i = admitted; i < AdaptiveConcurrencyLimiter.MIN_WINDOW_SAMPLES; i++) {
+            if (limiter.tryAcquire()) {
+                limiter.release(latency, now);
+            }
+        }
+        now += AdaptiveConcurrencyLimiter.WINDOW;
+        for (int i = 0; i < admitted; i++) {
+            limiter.release(latency, now);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package in.gilsondev.libraryapi.api.admission;
+
+import in.gilsondev.libraryapi.api.ClientKeyResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdmissionControlFilterTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After to a client over its rate")
+    public void rejectOverRate() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(new RateLimiter(0.5, 1, 100), null,
+                new ClientKeyResolver("X-Client-Id"), registry);
+
+        assertThat(perform(filter, "a", new MockFilterChain()).getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = perform(filter, "a", new MockFilterChain());
+        assertThat(perform(filter, "b", new MockFilterChain()).getStatus()).isEqualTo(200);
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(registry.get(AdmissionControlFilter.METRIC_NAME).tag("reason", "rate-limit").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should limit clients by remote address unless a client header is configured")
+    public void ignoreClientHeaderByDefault() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(new RateLimiter(0.5, 1, 100), null,
+                new ClientKeyResolver(""), registry);
+
+        assertThat(perform(filter, "a", new MockFilterChain()).getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "b", new MockFilterChain()).getStatus()).isEqualTo(429);
+        assertThat(perform(filter, "c", new MockFilterChain()).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Should answer 503 beyond the concurrency limit")
+    public void rejectBeyondConcurrencyLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, System.nanoTime());
+        AdmissionControlFilter filter = new AdmissionControlFilter(null, limiter, new ClientKeyResolver("X-Client-Id"), registry);
+
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        FilterChain chain = (request, response) -> nested[0] = perform(filter, "a", new MockFilterChain());
+        MockHttpServletResponse admitted = perform(filter, "a", chain);
+
+        assertThat(admitted.getStatus()).isEqualTo(200);
+        assertThat(nested[0].getStatus()).isEqualTo(503);
+        assertThat(limiter.getInflight()).isZero();
+        assertThat(registry.get("http.server.requests.concurrency.limit").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not hold concurrency slots for long polls of the change feed")
+    public void skipConcurrencyLimitForLongPolls() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, System.nanoTime());
+        AdmissionControlFilter filter = new AdmissionControlFilter(null, limiter, new ClientKeyResolver("X-Client-Id"), registry);
+        MockHttpServletRequest longPoll = new MockHttpServletRequest("GET", "/api/books/changes");
+        MockHttpServletResponse longPollResponse = new MockHttpServletResponse();
+
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        filter.doFilter(longPoll, longPollResponse, (request, response) ->
+                nested[0] = perform(filter, "a", new MockFilterChain()));
+
+        assertThat(longPollResponse.getStatus()).isEqualTo(200);
+        assertThat(nested[0].getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse perform(AdmissionControlFilter filter, String client, FilterChain chain)
+            throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+        request.addHeader("X-Client-Id", client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,51 @@
+package in.gilsondev.libraryapi.api.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Should admit a burst and then the refill rate")
+    public void burstThenRate() {
+        RateLimiter rateLimiter = new RateLimiter(10, 5, 100);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("a", now)).isZero();
+        }
+        assertThat(rateLimiter.tryAcquire("a", now)).isEqualTo(SECOND / 10);
+
+        assertThat(rateLimiter.tryAcquire("a", now + SECOND / 10)).isZero();
+        assertThat(rateLimiter.tryAcquire("a", now + SECOND / 10)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should keep a bucket per client")
+    public void bucketPerClient() {
+        RateLimiter rateLimiter = new RateLimiter(1, 1, 100);
+        long now = 1_000 * SECOND;
+
+        assertThat(rateLimiter.tryAcquire("a", now)).isZero();
+        assertThat(rateLimiter.tryAcquire("a", now)).isPositive();
+        assertThat(rateLimiter.tryAcquire("b", now)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not save tokens beyond the burst while idle")
+    public void idleClientRefillsUpToBurst() {
+        RateLimiter rateLimiter = new RateLimiter(10, 2, 100);
+        long now = 1_000 * SECOND;
+        assertThat(rateLimiter.tryAcquire("a", now)).isZero();
+
+        long later = now + 60 * SECOND;
+        assertThat(rateLimiter.tryAcquire("a", later)).isZero();
+        assertThat(rateLimiter.tryAcquire("a", later)).isZero();
+        assertThat(rateLimiter.tryAcquire("a", later)).isPositive();
+    }
+}
@@ -0,0 +1,145 @@
+package in.gilsondev.libraryapi.api.cache;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.service.BookChangedEvent;
+import in.gilsondev.libraryapi.service.BookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(properties = "library.json-cache.enabled=true")
+@Import({BookJsonCache.class, SimpleMeterRegistry.class})
+@AutoConfigureMockMvc
+public class BookJsonCacheTest {
+    static String BOOKS_API = "/api/books";
+    static String JSON = "{\"id\":1,\"title\":\"As aventuras\",\"author\":\"Fulano\",\"isbn\":\"001\"}";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BookJsonCache jsonCache;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    BookService bookService;
+
+    @Test
+    @DisplayName("Should serve the cached JSON without loading the book again")
+    public void serveCachedJson() throws Exception {
+        Book book = createBook(3L);
+        given(bookService.getVersion(1L)).willReturn(Optional.of(new BookVersion(3L, book.getUpdatedAt())));
+        given(bookService.getById(1L)).willReturn(Optional.of(book));
+
+        for (int request = 0; request < 2; request++) {
+            mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(content().string(JSON))
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                    .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, book.getUpdatedAt().toEpochMilli()));
+        }
+        verify(bookService, times(1)).getById(1L);
+    }
+
+    @Test
+    @DisplayName("Should render the book again when the version changed")
+    public void renderNewVersion() throws Exception {
+        Book book = createBook(3L);
+        Book updated = book.toBuilder().title("Novo titulo").version(4L).build();
+        given(bookService.getById(1L)).willReturn(Optional.of(book), Optional.of(updated));
+        given(bookService.getVersion(1L)).willReturn(
+                Optional.of(new BookVersion(3L, book.getUpdatedAt())),
+                Optional.of(new BookVersion(4L, book.getUpdatedAt())));
+
+        mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(content().string(JSON.replace("As aventuras", "Novo titulo")));
+    }
+
+    @Test
+    @DisplayName("Should leave requests for other formats to the message converters")
+    public void bypassForOtherFormats() throws Exception {
+        given(bookService.getById(1L)).willReturn(Optional.of(createBook(3L)));
+
+        mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        verify(bookService, never()).getVersion(1L);
+    }
+
+    @Test
+    @DisplayName("Should drop the JSON of a changed book")
+    public void invalidateOnChange() {
+        jsonCache.put(createBook(3L));
+
+        eventPublisher.publishEvent(new BookChangedEvent(1L, null));
+
+        assertThat(jsonCache.get(1L, 3L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should answer a conditional request without rendering the book")
+    public void notModified() throws Exception {
+        given(bookService.getVersion(1L)).willReturn(Optional.of(new BookVersion(3L, Instant.now())));
+
+        mockMvc.perform(get(BOOKS_API + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(bookService, never()).getById(1L);
+    }
+
+    @Test
+    @DisplayName("Should return not found when book not exists")
+    public void bookNotExists() throws Exception {
+        given(bookService.getVersion(1L)).willReturn(Optional.empty());
+
+        mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    private Book createBook(Long version) {
+        return Book.builder()
+                .id(1L)
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("001")
+                .version(version)
+                .updatedAt(Instant.parse("2020-05-10T12:00:00Z"))
+                .build();
+    }
+}
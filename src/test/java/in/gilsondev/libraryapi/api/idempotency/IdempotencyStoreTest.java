@@ -0,0 +1,216 @@
+package in.gilsondev.libraryapi.api.idempotency;
+
+import in.gilsondev.libraryapi.api.ClientKeyResolver;
+import in.gilsondev.libraryapi.exception.BusinessException;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(properties = "library.idempotency.enabled=true")
+@Import({IdempotencyStore.class, ClientKeyResolver.class, SimpleMeterRegistry.class})
+@AutoConfigureMockMvc
+public class IdempotencyStoreTest {
+    static String BOOKS_API = "/api/books";
+    static String JSON = "{\"title\":\"Meu Livro\",\"author\":\"Autor\",\"isbn\":\"9780306406157\"}";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    SimpleMeterRegistry registry;
+
+    @MockBean
+    BookService bookService;
+
+    @Test
+    @DisplayName("Should answer a retry with the book created by the first request")
+    public void replayCreatedBook() throws Exception {
+        given(bookService.save(any(Book.class))).willReturn(createBook());
+        double replayed = registry.counter("http.server.requests.replayed").count();
+
+        for (int request = 0; request < 2; request++) {
+            mockMvc.perform(create("key-1", JSON))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("id").value(1));
+        }
+        verify(bookService, times(1)).save(any(Book.class));
+        assertThat(registry.counter("http.server.requests.replayed").count()).isEqualTo(replayed + 1);
+    }
+
+    @Test
+    @DisplayName("Should answer a retry with the business error of the first request")
+    public void replayBusinessError() throws Exception {
+        given(bookService.save(any(Book.class))).willThrow(new BusinessException("ISBN is already exists"));
+
+        for (int request = 0; request < 2; request++) {
+            mockMvc.perform(create("key-2", JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("errors[0]").value("ISBN is already exists"));
+        }
+        verify(bookService, times(1)).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for another book and keep keys apart per client")
+    public void keyScope() throws Exception {
+        given(bookService.save(any(Book.class))).willReturn(createBook());
+
+        mockMvc.perform(create("key-3", JSON)).andExpect(status().isCreated());
+        mockMvc.perform(create("key-3", JSON.replace("Meu Livro", "Outro Livro")))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(create("key-3", JSON).with(from("10.0.0.2")))
+                .andExpect(status().isCreated());
+        mockMvc.perform(create("key-3", JSON).with(from("10.0.0.2")))
+                .andExpect(status().isCreated())
+                .andExpect(content().json("{\"id\":1}"));
+
+        verify(bookService, times(2)).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Should make concurrent duplicates wait for the first request")
+    public void awaitInFlight() throws Exception {
+        IdempotencyStore store = createStore();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                store.execute(new MockHttpServletRequest(), "key", "body", () -> {
+                    executions.incrementAndGet();
+                    running.countDown();
+                    await(release);
+                    return "created";
+                }));
+        running.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() ->
+                store.execute(new MockHttpServletRequest(), "key", "body", () -> {
+                    executions.incrementAndGet();
+                    return "duplicated";
+                }));
+        Thread.sleep(100);
+        assertThat(duplicate).isNotDone();
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("created");
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isEqualTo("created");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should answer 409 to a duplicate that waited too long for the first request")
+    public void conflictWhileInFlight() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IdempotencyStore store = new IdempotencyStore(registry, new ClientKeyResolver(""), 100,
+                Duration.ofHours(1), Duration.ofMillis(50));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                store.execute(new MockHttpServletRequest(), "key", "body", () -> {
+                    running.countDown();
+                    await(release);
+                    return "created";
+                }));
+        running.await(5, TimeUnit.SECONDS);
+
+        Throwable exception = catchThrowable(() ->
+                store.execute(new MockHttpServletRequest(), "key", "body", () -> "duplicated"));
+        release.countDown();
+
+        assertThat(exception).isInstanceOf(ResponseStatusException.class);
+        assertThat(((ResponseStatusException) exception).getStatus()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(registry.counter("http.server.requests.replayed").count()).isZero();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("created");
+        assertThat(store.execute(new MockHttpServletRequest(), "key", "body", () -> "duplicated"))
+                .isEqualTo("created");
+        assertThat(registry.counter("http.server.requests.replayed").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should run a retry again after an unexpected failure")
+    public void forgetUnexpectedFailure() {
+        IdempotencyStore store = createStore();
+
+        Throwable exception = catchThrowable(() -> store.execute(new MockHttpServletRequest(), "key", "body",
+                () -> {
+                    throw new IllegalStateException("database down");
+                }));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        assertThat(store.execute(new MockHttpServletRequest(), "key", "body", () -> "created"))
+                .isEqualTo("created");
+    }
+
+    private static IdempotencyStore createStore() {
+        return new IdempotencyStore(new SimpleMeterRegistry(), new ClientKeyResolver(""), 100, Duration.ofHours(1),
+                Duration.ofSeconds(5));
+    }
+
+    private static RequestPostProcessor from(String remoteAddress) {
+        return request -> {
+            request.setRemoteAddr(remoteAddress);
+            return request;
+        };
+    }
+
+    private static MockHttpServletRequestBuilder create(String key, String json) {
+        return post(BOOKS_API)
+                .header(IdempotencyStore.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Book createBook() {
+        return Book.builder()
+                .id(1L)
+                .author("Autor")
+                .title("Meu Livro")
+                .isbn("9780306406157")
+                .build();
+    }
+}
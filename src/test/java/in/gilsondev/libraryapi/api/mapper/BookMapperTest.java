@@ -0,0 +1,87 @@
+package in.gilsondev.libraryapi.api.mapper;
+
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import in.gilsondev.libraryapi.service.index.IsbnIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class BookMapperTest {
+    BookMapper bookMapper = new BookMapper();
+
+    @Test
+    @DisplayName("Should map a book to DTO")
+    public void toDTOTest() {
+        Book book = Book.builder()
+                .id(1L)
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("123123")
+                .build();
+
+        BookDTO bookDTO = bookMapper.toDTO(book);
+
+        assertThat(bookDTO.getId()).isEqualTo(book.getId());
+        assertThat(bookDTO.getTitle()).isEqualTo(book.getTitle());
+        assertThat(bookDTO.getAuthor()).isEqualTo(book.getAuthor());
+        assertThat(bookDTO.getIsbn()).isEqualTo(book.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Should map a DTO to book")
+    public void toEntityTest() {
+        BookDTO bookDTO = BookDTO.builder()
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("123123")
+                .build();
+
+        Book book = bookMapper.toEntity(bookDTO);
+
+        assertThat(book.getId()).isNull();
+        assertThat(book.getTitle()).isEqualTo(bookDTO.getTitle());
+        assertThat(book.getAuthor()).isEqualTo(bookDTO.getAuthor());
+        assertThat(book.getIsbn()).isEqualTo(bookDTO.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Should treat an ISBN-10 ending in x or X as the same ISBN")
+    public void checkDigitXTest() {
+        Book lower = bookMapper.toEntity(BookDTO.builder().title("A").author("B").isbn("080442957x").build());
+        Book upper = bookMapper.toEntity(BookDTO.builder().title("A").author("B").isbn("080442957X").build());
+
+        assertThat(lower.getIsbn()).isEqualTo("080442957X").isEqualTo(upper.getIsbn());
+        IsbnIndex isbnIndex = new IsbnIndex(mock(BookRepository.class));
+        assertThat(isbnIndex.reserve(upper.getIsbn())).isTrue();
+        assertThat(isbnIndex.reserve(lower.getIsbn())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should only update title and author of a book")
+    public void updateEntityTest() {
+        Book book = Book.builder()
+                .id(1L)
+                .title("Old Book")
+                .author("Fulano")
+                .isbn("123123")
+                .build();
+        BookDTO bookDTO = BookDTO.builder()
+                .id(2L)
+                .title("New Book")
+                .author("Ciclano")
+                .isbn("456456")
+                .build();
+
+        Book updated = bookMapper.updateEntity(bookDTO, book);
+
+        assertThat(updated).isSameAs(book);
+        assertThat(updated.getId()).isEqualTo(1L);
+        assertThat(updated.getTitle()).isEqualTo("New Book");
+        assertThat(updated.getAuthor()).isEqualTo("Ciclano");
+        assertThat(updated.getIsbn()).isEqualTo("123123");
+    }
+}
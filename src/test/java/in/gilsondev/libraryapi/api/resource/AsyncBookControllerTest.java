@@ -0,0 +1,146 @@
+package in.gilsondev.libraryapi.api.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.config.AsyncExecutionConfiguration;
+import in.gilsondev.libraryapi.exception.BusinessException;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(properties = "library.async.enabled=true")
+@Import(AsyncExecutionConfiguration.class)
+@AutoConfigureMockMvc
+public class AsyncBookControllerTest {
+    static String BOOKS_API = "/api/async/books";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    BookService bookService;
+
+    @Test
+    @DisplayName("Should fetch a book on the JDBC executor")
+    public void getBookDetailTest() throws Exception {
+        Book book = createBook();
+        given(bookService.getById(1L)).willReturn(Optional.of(book));
+
+        MvcResult result = mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(1))
+                .andExpect(jsonPath("title").value(book.getTitle()));
+    }
+
+    @Test
+    @DisplayName("Should return not found when book not exists")
+    public void bookNotExists() throws Exception {
+        given(bookService.getById(anyLong())).willReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should create a book")
+    public void createBookTest() throws Exception {
+        given(bookService.save(any(Book.class))).willReturn(createBook());
+
+        MockHttpServletRequestBuilder request = post(BOOKS_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(createBookDTO()));
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("id").value(1));
+    }
+
+    @Test
+    @DisplayName("Should catch business error when create book with duplicated ISBN")
+    public void createBookWithDuplicatedISBN() throws Exception {
+        given(bookService.save(any(Book.class))).willThrow(new BusinessException("ISBN is already exists"));
+
+        MockHttpServletRequestBuilder request = post(BOOKS_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(createBookDTO()));
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("ISBN is already exists"));
+    }
+
+    @Test
+    @DisplayName("Should remove book by ID")
+    public void removeBookByID() throws Exception {
+        given(bookService.deleteByIds(Collections.singletonList(1L))).willReturn(Collections.singletonList(1L));
+
+        MvcResult result = mockMvc.perform(delete(BOOKS_API + "/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNoContent());
+    }
+
+    private Book createBook() {
+        return Book.builder()
+                .id(1L)
+                .author("Autor")
+                .title("Meu Livro")
+                .isbn("9780306406157")
+                .build();
+    }
+
+    private BookDTO createBookDTO() {
+        return BookDTO.builder()
+                .author("Autor")
+                .title("Meu Livro")
+                .isbn("9780306406157")
+                .build();
+    }
+}
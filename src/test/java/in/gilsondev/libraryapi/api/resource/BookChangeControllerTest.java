@@ -0,0 +1,108 @@
+package in.gilsondev.libraryapi.api.resource;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookService;
+import in.gilsondev.libraryapi.service.outbox.BookChangeRelay;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:book-changes;DB_CLOSE_DELAY=-1",
+        "library.outbox.enabled=true",
+        "library.outbox.relay-interval=1h",
+        "library.outbox.recent-capacity=2"
+})
+@AutoConfigureMockMvc
+public class BookChangeControllerTest {
+    static final String CHANGES_API = "/api/books/changes";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookChangeRelay relay;
+
+    @Test
+    @DisplayName("Should list the changes of books in the order they were made")
+    public void listChangesTest() throws Exception {
+        relay.relay();
+        long since = relay.getLastSequence();
+        Book book = bookService.save(createBook("9780306406157"));
+        book.setTitle("Novo titulo");
+        Book updated = bookService.update(book);
+        bookService.delete(updated);
+        relay.relay();
+
+        // Older than the changes kept in memory.
+        MvcResult result = mvc.perform(get(CHANGES_API).param("since", String.valueOf(since)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("changes", hasSize(3)))
+                .andExpect(jsonPath("changes[0].sequence").value(since + 1))
+                .andExpect(jsonPath("changes[0].bookId").value(book.getId()))
+                .andExpect(jsonPath("changes[0].type").value("CREATED"))
+                .andExpect(jsonPath("changes[0].version").value(0))
+                .andExpect(jsonPath("changes[1].type").value("UPDATED"))
+                .andExpect(jsonPath("changes[1].version").value(1))
+                .andExpect(jsonPath("changes[2].type").value("DELETED"))
+                .andExpect(jsonPath("changes[2].version").doesNotExist())
+                .andExpect(jsonPath("next").value(since + 3));
+
+        result = mvc.perform(get(CHANGES_API).param("since", String.valueOf(since + 1)).param("size", "1"))
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("changes", hasSize(1)))
+                .andExpect(jsonPath("changes[0].type").value("UPDATED"))
+                .andExpect(jsonPath("next").value(since + 2));
+    }
+
+    @Test
+    @DisplayName("Should hold a request until the next changes are published")
+    public void longPollTest() throws Exception {
+        relay.relay();
+        long since = relay.getLastSequence();
+
+        MvcResult result = mvc.perform(get(CHANGES_API).param("since", String.valueOf(since)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Book book = bookService.save(createBook("9788535910667"));
+        // Not published yet.
+        assertThat(catchThrowable(() -> result.getAsyncResult(100))).isInstanceOf(IllegalStateException.class);
+        relay.relay();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("changes", hasSize(1)))
+                .andExpect(jsonPath("changes[0].bookId").value(book.getId()))
+                .andExpect(jsonPath("next").value(since + 1));
+    }
+
+    private Book createBook(String isbn) {
+        return Book.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
+    }
+}
@@ -1,9 +1,16 @@
 package in.gilsondev.libraryapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import in.gilsondev.libraryapi.api.dto.BookDTO;
 import in.gilsondev.libraryapi.exception.BusinessException;
+import in.gilsondev.libraryapi.api.pagination.KeysetCursor;
 import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.service.BookImportResult;
 import in.gilsondev.libraryapi.service.BookService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,6 +20,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -20,16 +29,32 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -55,7 +80,7 @@ public class BookControllerTest {
                 .id(1L)
                 .author("Autor")
                 .title("Meu Livro")
-                .isbn("123123123")
+                .isbn("9780306406157")
                 .build();
 
         given(bookService.save(any(Book.class))).willReturn(savedBook);
@@ -91,6 +116,23 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should reject a book whose ISBN check digit does not match")
+    public void createBookWithInvalidIsbnTest() throws Exception {
+        BookDTO bookDTO = createNewBook();
+        bookDTO.setIsbn("9780306406158");
+
+        MockHttpServletRequestBuilder request = post(BOOKS_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(bookDTO));
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("isbn must be a valid ISBN-10 or ISBN-13"));
+        verify(bookService, never()).save(any(Book.class));
+    }
+
     @Test
     @DisplayName("Should catch business error when create book with duplicated ISBN")
     public void createBookWithDuplicatedISBN() throws Exception {
@@ -111,6 +153,249 @@ public class BookControllerTest {
                 .andExpect(jsonPath("errors[0]").value(errorMessage));
     }
 
+    @Test
+    @DisplayName("Should import a JSON array of books")
+    public void importBooksTest() throws Exception {
+        BookDTO bookDTO = createNewBook();
+        Book savedBook = Book.builder()
+                .id(1L)
+                .author(bookDTO.getAuthor())
+                .title(bookDTO.getTitle())
+                .isbn(bookDTO.getIsbn())
+                .build();
+
+        given(bookService.importBooks(anyList())).willReturn(new BookImportResult(
+                Collections.singletonList(savedBook), Collections.singletonList("456456")));
+
+        String json = new ObjectMapper().writeValueAsString(new BookDTO[]{bookDTO, new BookDTO()});
+
+        MockHttpServletRequestBuilder request = post(BOOKS_API + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mockMvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("imported").value(1))
+                .andExpect(jsonPath("rejected").value(1))
+                .andExpect(jsonPath("duplicatedIsbns[0]").value("456456"));
+    }
+
+    @Test
+    @DisplayName("Should import a NDJSON stream of books")
+    public void importBooksFromNdjsonTest() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String ndjson = objectMapper.writeValueAsString(createNewBook()) + "\n"
+                + objectMapper.writeValueAsString(createNewBook()) + "\n";
+
+        given(bookService.importBooks(anyList())).willReturn(new BookImportResult(
+                Collections.emptyList(), Collections.singletonList(createNewBook().getIsbn())));
+
+        MockHttpServletRequestBuilder request = post(BOOKS_API + "/batch")
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(ndjson);
+
+        mockMvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("imported").value(0))
+                .andExpect(jsonPath("rejected").value(0))
+                .andExpect(jsonPath("duplicatedIsbns", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Should export all books as NDJSON")
+    public void exportBooksTest() throws Exception {
+        Book first = Book.builder().id(1L).title("Livro 1").author("Autor").isbn("111").build();
+        Book second = Book.builder().id(2L).title("Livro 2").author("Autor").isbn("222").build();
+
+        willAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).given(bookService).exportBooks(any());
+
+        MockHttpServletRequestBuilder request = get(BOOKS_API + "/export")
+                .accept("application/x-ndjson");
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":1,\"title\":\"Livro 1\",\"author\":\"Autor\",\"isbn\":\"111\"}\n"
+                                + "{\"id\":2,\"title\":\"Livro 2\",\"author\":\"Autor\",\"isbn\":\"222\"}\n"));
+    }
+
+    @Test
+    @DisplayName("Should import a CBOR array of books")
+    public void importBooksFromCborTest() throws Exception {
+        given(bookService.importBooks(anyList())).willReturn(new BookImportResult(
+                Collections.singletonList(Book.builder().id(1L).build()), Collections.emptyList()));
+
+        byte[] cbor = new ObjectMapper(new CBORFactory()).writeValueAsBytes(new BookDTO[]{createNewBook()});
+
+        MockHttpServletRequestBuilder request = post(BOOKS_API + "/batch")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(cbor);
+
+        mockMvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("imported").value(1))
+                .andExpect(jsonPath("rejected").value(0));
+    }
+
+    @Test
+    @DisplayName("Should export all books as a CBOR array")
+    public void exportBooksAsCborTest() throws Exception {
+        Book first = Book.builder().id(1L).title("Livro 1").author("Autor").isbn("111").build();
+        Book second = Book.builder().id(2L).title("Livro 2").author("Autor").isbn("222").build();
+
+        willAnswer(invocation -> {
+            Consumer<Book> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).given(bookService).exportBooks(any());
+
+        MockHttpServletRequestBuilder request = get(BOOKS_API + "/export")
+                .accept(MediaType.APPLICATION_CBOR);
+
+        byte[] cbor = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BookDTO[] books = new ObjectMapper(new CBORFactory()).readValue(cbor, BookDTO[].class);
+        assertThat(books).extracting(BookDTO::getId).containsExactly(1L, 2L);
+        assertThat(books[1].getTitle()).isEqualTo("Livro 2");
+    }
+
+    @Test
+    @DisplayName("Should list a page of books with the cursor of the next one")
+    public void listBooksTest() throws Exception {
+        BookSummary first = new BookSummary(1L, "Meu Livro", "Autor", "111");
+        BookSummary second = new BookSummary(2L, "Meu Livro 2", "Autor", "222");
+        BookSummary third = new BookSummary(3L, "Meu Livro 3", "Autor", "333");
+
+        given(bookService.findBooks(eq(BookFilter.builder().title("Meu").build()), eq(0L), eq(3)))
+                .willReturn(Arrays.asList(first, second, third));
+
+        MockHttpServletRequestBuilder request = get(BOOKS_API)
+                .param("title", "Meu")
+                .param("size", "2")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("books", hasSize(2)))
+                .andExpect(jsonPath("books[1].id").value(2))
+                .andExpect(jsonPath("next").value(KeysetCursor.encode(2L)));
+    }
+
+    @Test
+    @DisplayName("Should continue listing from the cursor")
+    public void listBooksFromCursorTest() throws Exception {
+        BookSummary last = new BookSummary(3L, "Meu Livro 3", "Autor", "333");
+
+        given(bookService.findBooks(any(BookFilter.class), eq(2L), eq(3)))
+                .willReturn(Collections.singletonList(last));
+
+        MockHttpServletRequestBuilder request = get(BOOKS_API)
+                .param("cursor", KeysetCursor.encode(2L))
+                .param("size", "2")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("books", hasSize(1)))
+                .andExpect(jsonPath("next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid cursor")
+    public void listBooksWithInvalidCursorTest() throws Exception {
+        MockHttpServletRequestBuilder request = get(BOOKS_API)
+                .param("cursor", "not-a-cursor")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should fetch several books in the requested order and report missing ids")
+    public void fetchBooksTest() throws Exception {
+        Map<Long, Book> found = new HashMap<>();
+        found.put(3L, Book.builder().id(3L).title("Tres").author("Autor").isbn("3").build());
+        found.put(1L, Book.builder().id(1L).title("Um").author("Autor").isbn("1").build());
+        given(bookService.getByIds(Arrays.asList(3L, 2L, 1L, 3L))).willReturn(found);
+
+        mockMvc.perform(get(BOOKS_API).param("ids", "3,2,1,3").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("books", hasSize(2)))
+                .andExpect(jsonPath("books[0].id").value(3))
+                .andExpect(jsonPath("books[1].id").value(1))
+                .andExpect(jsonPath("missingIds", hasSize(1)))
+                .andExpect(jsonPath("missingIds[0]").value(2));
+    }
+
+    @Test
+    @DisplayName("Should look up books from a list of ids in the body")
+    public void lookupBooksTest() throws Exception {
+        given(bookService.getByIds(Arrays.asList(1L, 2L)))
+                .willReturn(Collections.singletonMap(2L, Book.builder().id(2L).title("Dois").build()));
+
+        mockMvc.perform(post(BOOKS_API + "/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("books[0].title").value("Dois"))
+                .andExpect(jsonPath("missingIds[0]").value(1));
+    }
+
+    @Test
+    @DisplayName("Should reject a lookup with too many ids")
+    public void lookupTooManyBooksTest() throws Exception {
+        String ids = LongStream.rangeClosed(1, BookController.MAX_LOOKUP_SIZE + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post(BOOKS_API + "/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should list the books found by a search in order of relevance")
+    public void searchBooksTest() throws Exception {
+        Map<Long, Book> found = new HashMap<>();
+        found.put(7L, Book.builder().id(7L).title("Dom Casmurro").author("Machado de Assis").isbn("7").build());
+        found.put(2L, Book.builder().id(2L).title("O Alienista").author("Machado de Assis").isbn("2").build());
+        given(bookService.searchBooks("machado", 5)).willReturn(Arrays.asList(7L, 4L, 2L));
+        given(bookService.getByIds(Arrays.asList(7L, 4L, 2L))).willReturn(found);
+
+        mockMvc.perform(get(BOOKS_API + "/search").param("q", "machado").param("size", "5")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("[0].id").value(7))
+                .andExpect(jsonPath("[1].id").value(2));
+    }
+
+    @Test
+    @DisplayName("Should reject a search without query or with an invalid size")
+    public void searchBooksInvalidTest() throws Exception {
+        mockMvc.perform(get(BOOKS_API + "/search").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(BOOKS_API + "/search").param("q", "machado")
+                .param("size", String.valueOf(BookController.MAX_PAGE_SIZE + 1))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Should fetch informations of book by ID")
     public void getBookDetailTest() throws Exception {
@@ -137,6 +422,93 @@ public class BookControllerTest {
                 .andExpect(jsonPath("isbn").value(book.getIsbn()));
     }
 
+    @Test
+    @DisplayName("Should fetch a book as CBOR or Smile when asked for")
+    public void getBookDetailInBinaryFormatsTest() throws Exception {
+        Book book = Book.builder().id(1L).title("Meu Livro").author("Autor").isbn("9780306406157").build();
+        given(bookService.getById(1L)).willReturn(Optional.of(book));
+
+        byte[] cbor = mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(get(BOOKS_API + "/1").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BookDTO expected = new BookDTO(1L, "Meu Livro", "Autor", "9780306406157");
+        assertThat(new ObjectMapper(new CBORFactory()).readValue(cbor, BookDTO.class)).isEqualTo(expected);
+        assertThat(new ObjectMapper(new SmileFactory()).readValue(smile, BookDTO.class)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should create a book sent as CBOR")
+    public void createBookFromCborTest() throws Exception {
+        BookDTO bookDTO = createNewBook();
+        given(bookService.save(any(Book.class))).willReturn(Book.builder().id(1L).title(bookDTO.getTitle())
+                .author(bookDTO.getAuthor()).isbn(bookDTO.getIsbn()).build());
+
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        MockHttpServletRequestBuilder request = post(BOOKS_API)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(bookDTO));
+
+        byte[] cbor = mockMvc.perform(request)
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(cborMapper.readValue(cbor, BookDTO.class).getId()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should send the version of the book as ETag and Last-Modified")
+    public void getBookWithValidatorsTest() throws Exception {
+        Book book = Book.builder()
+                .id(1L)
+                .author(createNewBook().getAuthor())
+                .title(createNewBook().getTitle())
+                .isbn(createNewBook().getIsbn())
+                .version(3L)
+                .updatedAt(Instant.parse("2020-05-10T12:00:00Z"))
+                .build();
+        given(bookService.getById(1L)).willReturn(Optional.of(book));
+
+        mockMvc.perform(get(BOOKS_API + "/1").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Sun, 10 May 2020 12:00:00 GMT"));
+    }
+
+    @Test
+    @DisplayName("Should answer not modified from the version without loading the book")
+    public void getBookNotModifiedTest() throws Exception {
+        given(bookService.getVersion(1L))
+                .willReturn(Optional.of(new BookVersion(3L, Instant.parse("2020-05-10T12:00:00Z"))));
+
+        mockMvc.perform(get(BOOKS_API + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mockMvc.perform(get(BOOKS_API + "/1").header(HttpHeaders.IF_MODIFIED_SINCE, "Sun, 10 May 2020 12:00:00 GMT"))
+                .andExpect(status().isNotModified());
+
+        verify(bookService, never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should return the book when its ETag changed")
+    public void getBookModifiedTest() throws Exception {
+        Book book = Book.builder().id(1L).title("Meu Livro").author("Autor").isbn("123").version(4L).build();
+        given(bookService.getVersion(1L)).willReturn(Optional.of(new BookVersion(4L, null)));
+        given(bookService.getById(1L)).willReturn(Optional.of(book));
+
+        mockMvc.perform(get(BOOKS_API + "/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("title").value("Meu Livro"));
+    }
+
     @Test
     @DisplayName("Should return not found when book not exists")
     public void bookNotExists() throws Exception {
@@ -191,6 +563,50 @@ public class BookControllerTest {
                 .andExpect(jsonPath("isbn").value(book.getIsbn()));
     }
 
+    @Test
+    @DisplayName("Should reject an update whose If-Match does not match the current version")
+    public void updateBookWithStaleETag() throws Exception {
+        Book book = Book.builder().id(1L).title("Old Book").author("Autor").isbn("123").version(4L).build();
+        given(bookService.getById(1L)).willReturn(Optional.of(book));
+
+        mockMvc.perform(put(BOOKS_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .content(new ObjectMapper().writeValueAsString(createNewBook())))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(bookService, never()).update(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Should update when If-Match matches and send the new ETag")
+    public void updateBookWithCurrentETag() throws Exception {
+        Book book = Book.builder().id(1L).title("Old Book").author("Autor").isbn("123").version(3L).build();
+        Book updatedBook = book.toBuilder().title(createNewBook().getTitle()).version(4L).build();
+        given(bookService.getById(1L)).willReturn(Optional.of(book));
+        given(bookService.update(any(Book.class))).willReturn(updatedBook);
+
+        mockMvc.perform(put(BOOKS_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"2\", \"3\"")
+                .content(new ObjectMapper().writeValueAsString(createNewBook())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    @DisplayName("Should return conflict when the book changed while being updated")
+    public void updateBookConcurrently() throws Exception {
+        Book book = Book.builder().id(1L).title("Old Book").author("Autor").isbn("123").version(3L).build();
+        given(bookService.getById(1L)).willReturn(Optional.of(book));
+        given(bookService.update(any(Book.class))).willThrow(new OptimisticLockingFailureException("stale"));
+
+        mockMvc.perform(put(BOOKS_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(createNewBook())))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @DisplayName("Should return not found when update book that not exists")
     public void updateBookNotExists() throws Exception {
@@ -213,14 +629,7 @@ public class BookControllerTest {
         Long id = 1L;
         final String BOOK_BY_ID_API = MessageFormat.format("{0}/{1}", BOOKS_API, id);
 
-        Book book = Book.builder()
-                .id(id)
-                .author(createNewBook().getAuthor())
-                .title(createNewBook().getTitle())
-                .isbn(createNewBook().getIsbn())
-                .build();
-
-        given(bookService.getById(id)).willReturn(Optional.of(book));
+        given(bookService.deleteByIds(Collections.singletonList(id))).willReturn(Collections.singletonList(id));
 
         MockHttpServletRequestBuilder request = delete(BOOK_BY_ID_API)
                 .accept(MediaType.APPLICATION_JSON);
@@ -236,7 +645,7 @@ public class BookControllerTest {
         Long id = 1L;
         final String BOOK_BY_ID_API = MessageFormat.format("{0}/{1}", BOOKS_API, id);
 
-        given(bookService.getById(anyLong())).willReturn(Optional.empty());
+        given(bookService.deleteByIds(Collections.singletonList(id))).willReturn(Collections.emptyList());
 
         MockHttpServletRequestBuilder request = delete(BOOK_BY_ID_API)
                 .accept(MediaType.APPLICATION_JSON);
@@ -246,11 +655,41 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Should remove books by a list of IDs and report the missing ones")
+    public void removeBooksByIds() throws Exception {
+        given(bookService.deleteByIds(Arrays.asList(1L, 2L, 3L))).willReturn(Arrays.asList(1L, 3L));
+
+        MockHttpServletRequestBuilder request = delete(BOOKS_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 3]");
+
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("deleted").value(2))
+                .andExpect(jsonPath("missingIds", hasSize(1)))
+                .andExpect(jsonPath("missingIds[0]").value(2));
+    }
+
+    @Test
+    @DisplayName("Should not remove books by an empty list of IDs")
+    public void removeBooksByEmptyIds() throws Exception {
+        MockHttpServletRequestBuilder request = delete(BOOKS_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]");
+
+        mockMvc.perform(request)
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).deleteByIds(anyList());
+    }
+
     private BookDTO createNewBook() {
         return BookDTO.builder()
                 .author("Autor")
                 .title("Meu Livro")
-                .isbn("123123123")
+                .isbn("9780306406157")
                 .build();
     }
 }
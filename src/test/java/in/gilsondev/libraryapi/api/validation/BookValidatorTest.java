@@ -0,0 +1,49 @@
+package in.gilsondev.libraryapi.api.validation;
+
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookValidatorTest {
+    private final BookValidator validator = new BookValidator();
+
+    @Test
+    @DisplayName("Should accept ISBN-10 and ISBN-13 with a matching check digit")
+    public void validIsbns() {
+        assertThat(BookValidator.isValidIsbn("9780306406157")).isTrue();
+        assertThat(BookValidator.isValidIsbn("0306406152")).isTrue();
+        assertThat(BookValidator.isValidIsbn("080442957X")).isTrue();
+        assertThat(BookValidator.isValidIsbn("080442957x")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject ISBNs with a wrong check digit, length or character")
+    public void invalidIsbns() {
+        assertThat(BookValidator.isValidIsbn("9780306406158")).isFalse();
+        assertThat(BookValidator.isValidIsbn("0306406153")).isFalse();
+        assertThat(BookValidator.isValidIsbn("978-0306406157")).isFalse();
+        assertThat(BookValidator.isValidIsbn("97803064061X7")).isFalse();
+        assertThat(BookValidator.isValidIsbn("123123123")).isFalse();
+        assertThat(BookValidator.isValidIsbn(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should report nothing for a valid book")
+    public void validBook() {
+        BookDTO bookDTO = new BookDTO(null, "Meu Livro", "Autor", "9780306406157");
+
+        assertThat(validator.isValid(bookDTO)).isTrue();
+        assertThat(validator.validate(bookDTO)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should report every invalid field")
+    public void invalidBook() {
+        assertThat(validator.validate(new BookDTO()))
+                .containsExactly(BookValidator.TITLE_EMPTY, BookValidator.AUTHOR_EMPTY, BookValidator.ISBN_EMPTY);
+        assertThat(validator.validate(new BookDTO(null, "Meu Livro", "", "123")))
+                .containsExactly(BookValidator.AUTHOR_EMPTY, BookValidator.ISBN_INVALID);
+    }
+}
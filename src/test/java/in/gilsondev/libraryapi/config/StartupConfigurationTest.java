@@ -0,0 +1,31 @@
+package in.gilsondev.libraryapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.main.lazy-initialization=true")
+public class StartupConfigurationTest {
+
+    @Autowired
+    ConfigurableApplicationContext context;
+
+    @Test
+    @DisplayName("Should create the warm-up beans at startup when initialization is lazy")
+    public void lazyInitializationTest() {
+        assertThat(context.getBeanFactory().containsSingleton("isbnIndex")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("searchIndex")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("bookWriteBehind")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("bookInvalidationBus")).isTrue();
+        assertThat(context.getBeanFactory().containsSingleton("bookController")).isFalse();
+    }
+}
@@ -0,0 +1,62 @@
+package in.gilsondev.libraryapi.metrics;
+
+import in.gilsondev.libraryapi.api.mapper.BookMapper;
+import in.gilsondev.libraryapi.model.entities.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class MethodTimingInterceptorTest {
+    MeterRegistry registry;
+    BookMapper mapper;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        given(provider.getObject()).willReturn(registry);
+
+        ProxyFactory proxyFactory = new ProxyFactory(new BookMapper());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new MethodTimingInterceptor(provider, "book.mapper"));
+        mapper = (BookMapper) proxyFactory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Should record one timer per method")
+    public void recordPerMethodTest() {
+        Book book = Book.builder().id(1L).title("Meu Livro").author("Autor").isbn("123").build();
+
+        mapper.toDTO(book);
+        mapper.toDTO(book);
+        mapper.toEntity(mapper.toDTO(book));
+
+        assertThat(timer("toDTO").count()).isEqualTo(3);
+        assertThat(timer("toEntity").count()).isEqualTo(1);
+        assertThat(registry.find("book.mapper").timers()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should record calls that throw")
+    public void recordFailedCallTest() {
+        assertThatThrownBy(() -> mapper.updateEntity(null, new Book()))
+                .isInstanceOf(NullPointerException.class);
+
+        assertThat(timer("updateEntity").count()).isEqualTo(1);
+    }
+
+    private Timer timer(String method) {
+        return registry.get("book.mapper").tag("method", method).timer();
+    }
+}
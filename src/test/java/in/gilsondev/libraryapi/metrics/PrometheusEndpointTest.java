@@ -0,0 +1,56 @@
+package in.gilsondev.libraryapi.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "library.cache.enabled=false")
+@AutoConfigureMockMvc
+public class PrometheusEndpointTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should expose endpoint, service, repository, query and pool metrics in Prometheus format")
+    public void scrapeTest() throws Exception {
+        BookDTO book = BookDTO.builder().title("Meu Livro").author("Autor").isbn("9791000000015").build();
+        mockMvc.perform(post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(book)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("http_server_requests_seconds{exception=\"None\",method=\"POST\","
+                                + "outcome=\"SUCCESS\",status=\"201\",uri=\"/api/books\",quantile=\"0.99\",}"),
+                        containsString("book_service_seconds_count{method=\"save\",}"),
+                        containsString("book_repository_seconds_count{method=\"save\",}"),
+                        containsString("book_mapper_seconds_count{method=\"toEntity\",}"),
+                        containsString("http_server_requests_queries_count{method=\"POST\",uri=\"/api/books\",}"),
+                        containsString("hikaricp_connections_pending{pool=\"library\",}"),
+                        containsString("hikaricp_connections_active{pool=\"library\",}"),
+                        containsString("hikaricp_connections_idle{pool=\"library\",}"),
+                        containsString("hikaricp_connections_acquire_seconds{pool=\"library\",quantile=\"0.99\",}"),
+                        containsString("hikaricp_connections_acquire_seconds_bucket{pool=\"library\","))));
+    }
+}
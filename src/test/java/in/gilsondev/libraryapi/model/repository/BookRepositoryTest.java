@@ -1,6 +1,9 @@
 package in.gilsondev.libraryapi.model.repository;
 
 import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
 import in.gilsondev.libraryapi.model.repositories.BookRepository;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -9,9 +12,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
@@ -34,6 +45,111 @@ public class BookRepositoryTest {
         assertThat(exists).isTrue();
     }
 
+    @Test
+    @DisplayName("Should return only the ISBNs already registered")
+    public void shouldReturnExistingIsbns() {
+        Book book = createValidBook();
+        entityManager.persist(book);
+
+        List<String> existing = repository.findExistingIsbns(Arrays.asList(book.getIsbn(), "456456"));
+        assertThat(existing).containsExactly(book.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Should stream all books ordered by id")
+    public void shouldStreamAllBooks() {
+        Book first = entityManager.persist(createValidBook());
+        Book second = entityManager.persist(Book.builder().title("Outro").author("Ciclano").isbn("456456").build());
+
+        try (Stream<Book> books = repository.streamAll()) {
+            assertThat(books.map(Book::getId).collect(Collectors.toList()))
+                    .containsExactly(first.getId(), second.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Should list books after the given id matching the filter")
+    public void shouldFindSummariesAfterId() {
+        Book first = entityManager.persist(createValidBook());
+        Book second = entityManager.persist(Book.builder().title("As aventuras 2").author("Fulano").isbn("2").build());
+        Book third = entityManager.persist(Book.builder().title("As aventuras 3").author("Fulano").isbn("3").build());
+        entityManager.persist(Book.builder().title("Outro livro").author("Fulano").isbn("4").build());
+
+        BookFilter filter = BookFilter.builder().title("As aventuras").build();
+        List<BookSummary> page = repository.findSummaries(filter, first.getId(), 10);
+
+        assertThat(page).extracting(BookSummary::getId).containsExactly(second.getId(), third.getId());
+        assertThat(repository.findSummaries(filter, 0L, 1))
+                .extracting(BookSummary::getId).containsExactly(first.getId());
+    }
+
+    @Test
+    @DisplayName("Should list only the books updated since the given instant")
+    public void shouldFindSummariesUpdatedSince() {
+        Instant before = Instant.now().minusSeconds(60);
+        Book book = entityManager.persistFlushFind(createValidBook());
+
+        BookFilter since = BookFilter.builder().updatedSince(before).build();
+        BookFilter later = BookFilter.builder().updatedSince(book.getUpdatedAt().plusSeconds(60)).build();
+
+        assertThat(repository.findSummaries(since, 0L, 10))
+                .extracting(BookSummary::getId).containsExactly(book.getId());
+        assertThat(repository.findSummaries(later, 0L, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should bump the version on update and read it without loading the book")
+    public void shouldFindVersion() {
+        Book book = entityManager.persistFlushFind(createValidBook());
+        entityManager.detach(book);
+
+        book.setTitle("Novo titulo");
+        repository.saveAndFlush(book);
+
+        BookVersion version = repository.findVersion(book.getId()).get();
+        assertThat(version.getVersion()).isEqualTo(book.getVersion() + 1);
+        assertThat(version.getUpdatedAt()).isNotNull();
+        assertThat(repository.findVersion(book.getId() + 1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should overwrite a book only from an older version")
+    public void shouldUpdateIfOlder() {
+        Book book = entityManager.persistFlushFind(createValidBook());
+        Book state = book.toBuilder().title("Novo titulo").version(book.getVersion() + 3).build();
+
+        assertThat(repository.updateIfOlder(state, book.getVersion())).isEqualTo(1);
+        assertThat(repository.updateIfOlder(state, book.getVersion())).isZero();
+
+        entityManager.clear();
+        Book stored = entityManager.find(Book.class, book.getId());
+        assertThat(stored.getTitle()).isEqualTo("Novo titulo");
+        assertThat(stored.getVersion()).isEqualTo(book.getVersion() + 3);
+    }
+
+    @Test
+    @DisplayName("Should hide deleted books, free their ISBN and purge them later")
+    public void shouldSoftDeleteAndPurge() {
+        Book book = entityManager.persistFlushFind(createValidBook());
+        List<Long> ids = Collections.singletonList(book.getId());
+
+        assertThat(repository.markDeleted(ids, Instant.now())).isEqualTo(1);
+        assertThat(repository.markDeleted(ids, Instant.now())).isZero();
+        entityManager.clear();
+
+        assertThat(repository.findById(book.getId())).isEmpty();
+        assertThat(repository.existsByIsbn(book.getIsbn())).isFalse();
+        assertThat(repository.findSummaries(new BookFilter(), 0L, 10)).isEmpty();
+        Book again = entityManager.persistAndFlush(createValidBook());
+        assertThat(repository.existsByIsbn(book.getIsbn())).isTrue();
+
+        assertThat(repository.findDeletedIds(PageRequest.of(0, 10))).extracting(Number::longValue)
+                .containsExactly(book.getId());
+        assertThat(repository.purgeDeleted(Arrays.asList(book.getId(), again.getId()))).isEqualTo(1);
+        assertThat(repository.findDeletedIds(PageRequest.of(0, 10))).isEmpty();
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
     private Book createValidBook() {
         return Book.builder()
                 .title("As aventuras")
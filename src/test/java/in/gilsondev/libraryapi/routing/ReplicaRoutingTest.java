@@ -0,0 +1,194 @@
+package in.gilsondev.libraryapi.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.gilsondev.libraryapi.api.dto.BookDTO;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Three embedded H2 databases stand for the primary and two replicas. Nothing
+ * is replicated: the tests copy rows to the replicas themselves, with other
+ * titles, to tell where each read went.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "library.cache.enabled=false",
+        "library.replicas.enabled=true",
+        "library.replicas.urls=" + ReplicaRoutingTest.REPLICA_1 + "," + ReplicaRoutingTest.REPLICA_2,
+        "library.replicas.lag-query=select seconds from replica_lag",
+        "library.replicas.max-lag=5s",
+        "library.replicas.lag-check-interval=1h"
+})
+@AutoConfigureMockMvc
+public class ReplicaRoutingTest {
+    static final String REPLICA_1 = "jdbc:h2:mem:replica-1;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_2 = "jdbc:h2:mem:replica-2;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    ReplicaRoutingDataSource dataSource;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    JdbcTemplate primary;
+    JdbcTemplate replica1;
+    JdbcTemplate replica2;
+
+    @BeforeEach
+    public void setUp() {
+        primary = new JdbcTemplate(dataSource);
+        replica1 = new JdbcTemplate(new DriverManagerDataSource(REPLICA_1, "sa", ""));
+        replica2 = new JdbcTemplate(new DriverManagerDataSource(REPLICA_2, "sa", ""));
+        for (JdbcTemplate replica : Arrays.asList(replica1, replica2)) {
+            replica.execute("create table if not exists book (id bigint primary key, author varchar(255),"
+                    + " isbn varchar(255), title varchar(255), updated_at timestamp, version bigint,"
+                    + " tombstone bigint default 0 not null)");
+            replica.execute("create table if not exists replica_lag (seconds double)");
+            replica.update("delete from book");
+            replica.update("delete from replica_lag");
+            replica.update("insert into replica_lag values (0)");
+        }
+        dataSource.checkReplicas();
+    }
+
+    @Test
+    @DisplayName("Should write to the primary and spread reads over the replicas")
+    public void spreadReadsTest() {
+        Book book = bookService.save(createBook("9780306406157"));
+        replicate(replica1, book, "Replica 1");
+        replicate(replica2, book, "Replica 2");
+
+        Set<String> titles = new HashSet<>();
+        titles.add(bookService.getById(book.getId()).get().getTitle());
+        titles.add(bookService.getById(book.getId()).get().getTitle());
+
+        assertThat(titles).containsExactlyInAnyOrder("Replica 1", "Replica 2");
+        assertThat(primary.queryForObject("select title from book where id = ?", String.class, book.getId()))
+                .isEqualTo("As aventuras");
+    }
+
+    @Test
+    @DisplayName("Should leave out lagging and unreachable replicas and fall back to the primary")
+    public void fallbackTest() {
+        Book book = bookService.save(createBook("9788535910667"));
+        replicate(replica1, book, "Replica 1");
+        replicate(replica2, book, "Replica 2");
+
+        replica1.update("update replica_lag set seconds = 10");
+        dataSource.checkReplicas();
+        assertThat(bookService.getById(book.getId()).get().getTitle()).isEqualTo("Replica 2");
+        assertThat(bookService.getById(book.getId()).get().getTitle()).isEqualTo("Replica 2");
+
+        replica2.execute("drop table replica_lag");
+        dataSource.checkReplicas();
+        double fallbacks = meterRegistry.get("db.replica.fallbacks").counter().count();
+        assertThat(bookService.getById(book.getId()).get().getTitle()).isEqualTo("As aventuras");
+        assertThat(meterRegistry.get("db.replica.fallbacks").counter().count()).isEqualTo(fallbacks + 1);
+        assertThat(meterRegistry.get("db.replica.lag").tag("replica", "library-replica-1").gauge().value())
+                .isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while writing and right after a write of the same client")
+    public void readYourWritesTest() throws Exception {
+        Book book = bookService.save(createBook("9791000000015"));
+        // The replicas have not seen this update.
+        replicate(replica1, book, "Replica");
+        replicate(replica2, book, "Replica");
+        book.setTitle("Atualizado");
+        bookService.update(book);
+
+        BookDTO changes = BookDTO.builder().title("Pelo cliente").author("Fulano").build();
+        mvc.perform(put("/api/books/" + book.getId())
+                .with(from("10.0.0.1"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(changes)))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/books/" + book.getId()).with(from("10.0.0.1")))
+                .andExpect(jsonPath("title").value("Pelo cliente"));
+        mvc.perform(get("/api/books/" + book.getId()).with(from("10.0.0.2")))
+                .andExpect(jsonPath("title").value("Replica"));
+        // The header is not trusted unless configured.
+        mvc.perform(get("/api/books/" + book.getId()).with(from("10.0.0.1")).header("X-Client-Id", "reader"))
+                .andExpect(jsonPath("title").value("Pelo cliente"));
+    }
+
+    @Test
+    @DisplayName("Should hand out connections with explicit credentials from the primary")
+    public void credentialsTest() throws SQLException {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:credentials;DB_CLOSE_DELAY=-1"),
+                Collections.singletonMap("replica", new DriverManagerDataSource(REPLICA_1, "sa", "")),
+                null, Duration.ofSeconds(5), Duration.ofHours(1), new SimpleMeterRegistry());
+
+        assertThat(RoutingContext.onReplica()).isTrue();
+        try {
+            try (Connection connection = routing.getConnection()) {
+                assertThat(connection.getMetaData().getURL()).contains("replica-1");
+            }
+            try (Connection connection = routing.getConnection("sa", "")) {
+                assertThat(connection.getMetaData().getURL()).contains("credentials");
+            }
+        } finally {
+            RoutingContext.clear();
+        }
+    }
+
+    private static RequestPostProcessor from(String remoteAddress) {
+        return request -> {
+            request.setRemoteAddr(remoteAddress);
+            return request;
+        };
+    }
+
+    private void replicate(JdbcTemplate replica, Book book, String title) {
+        replica.update("insert into book (id, author, isbn, title, updated_at, version) values (?, ?, ?, ?, ?, ?)",
+                book.getId(), book.getAuthor(), book.getIsbn(), title, Timestamp.from(Instant.now()),
+                book.getVersion());
+    }
+
+    private Book createBook(String isbn) {
+        return Book.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
+    }
+}
@@ -2,21 +2,45 @@ package in.gilsondev.libraryapi.service;
 
 import in.gilsondev.libraryapi.exception.BusinessException;
 import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.entities.BookChange;
 import in.gilsondev.libraryapi.model.repositories.BookRepository;
 import in.gilsondev.libraryapi.service.impl.BookServiceImpl;
+import in.gilsondev.libraryapi.service.index.IsbnIndex;
+import in.gilsondev.libraryapi.service.outbox.BookOutbox;
+import in.gilsondev.libraryapi.service.search.SearchIndex;
+import in.gilsondev.libraryapi.service.writebehind.BookWriteBehind;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,12 +49,22 @@ import static org.mockito.Mockito.when;
 public class BookServiceTest {
     BookService bookService;
 
+    IsbnIndex isbnIndex;
+
+    SearchIndex searchIndex;
+
+    BookOutbox outbox;
+
     @MockBean
     BookRepository repository;
 
     @BeforeEach
     public void setUp() {
-        this.bookService = new BookServiceImpl(repository);
+        this.isbnIndex = new IsbnIndex(repository);
+        this.searchIndex = mock(SearchIndex.class);
+        this.outbox = mock(BookOutbox.class);
+        this.bookService = new BookServiceImpl(repository, isbnIndex, searchIndex, mock(BookWriteBehind.class),
+                outbox, mock(PlatformTransactionManager.class), mock(ApplicationEventPublisher.class));
     }
 
     @Test
@@ -52,6 +86,10 @@ public class BookServiceTest {
         assertThat(entity.getIsbn()).isEqualTo(book.getIsbn());
         assertThat(entity.getTitle()).isEqualTo(book.getTitle());
         assertThat(entity.getAuthor()).isEqualTo(book.getAuthor());
+        assertThat(isbnIndex.contains(book.getIsbn())).isTrue();
+        verify(repository, never()).existsByIsbn(anyString());
+        verify(searchIndex).index(savedBook);
+        verify(outbox).append(BookChange.Type.CREATED, savedBook);
     }
 
     @Test
@@ -60,6 +98,7 @@ public class BookServiceTest {
         Book book = createValidBook();
         String errorMessage = "ISBN is already exists";
 
+        isbnIndex.reserve(book.getIsbn());
         when(repository.existsByIsbn(anyString())).thenReturn(true);
 
         Throwable exception = catchThrowable(() -> bookService.save(book));
@@ -70,6 +109,184 @@ public class BookServiceTest {
         verify(repository, never()).save(book);
     }
 
+    @Test
+    @DisplayName("Should save a book when the indexed ISBN no longer exists")
+    public void saveBookWithStaleIndexEntryTest() {
+        Book book = createValidBook();
+        isbnIndex.reserve(book.getIsbn());
+        when(repository.existsByIsbn(book.getIsbn())).thenReturn(false);
+        when(repository.save(book)).thenReturn(book);
+
+        assertThat(bookService.save(book)).isEqualTo(book);
+    }
+
+    @Test
+    @DisplayName("Should report duplicated ISBN when the unique constraint fails")
+    public void saveBookRacingWithAnotherInsertTest() {
+        Book book = createValidBook();
+        when(repository.save(book)).thenThrow(new DataIntegrityViolationException("uk_book_isbn"));
+
+        Throwable exception = catchThrowable(() -> bookService.save(book));
+
+        assertThat(exception).isInstanceOf(BusinessException.class);
+        assertThat(isbnIndex.contains(book.getIsbn())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should release the ISBN when saving fails")
+    public void saveBookFailureTest() {
+        Book book = createValidBook();
+        when(repository.save(book)).thenThrow(new IllegalStateException());
+
+        catchThrowable(() -> bookService.save(book));
+
+        assertThat(isbnIndex.contains(book.getIsbn())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should get a book by ID")
+    public void getByIdTest() {
+        Book book = createValidBook();
+        book.setId(1L);
+        when(repository.findById(1L)).thenReturn(Optional.of(book));
+
+        Optional<Book> found = bookService.getById(1L);
+
+        assertThat(found).contains(book);
+    }
+
+    @Test
+    @DisplayName("Should return empty when book not exists")
+    public void getByIdNotFoundTest() {
+        when(repository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThat(bookService.getById(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should update a book")
+    public void updateBookTest() {
+        Book book = createValidBook();
+        book.setId(1L);
+        when(repository.save(book)).thenReturn(book);
+
+        Book updated = bookService.update(book);
+
+        assertThat(updated).isEqualTo(book);
+        verify(searchIndex).index(book);
+        verify(outbox).append(BookChange.Type.UPDATED, book);
+    }
+
+    @Test
+    @DisplayName("Should not update a book without ID")
+    public void updateInvalidBookTest() {
+        Book book = createValidBook();
+
+        Throwable exception = catchThrowable(() -> bookService.update(book));
+
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+        verify(repository, never()).save(book);
+    }
+
+    @Test
+    @DisplayName("Should delete a book")
+    public void deleteBookTest() {
+        Book book = createValidBook();
+        book.setId(1L);
+
+        isbnIndex.reserve(book.getIsbn());
+        when(repository.findAllForDelete(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(book));
+
+        bookService.delete(book);
+
+        verify(repository).markDeleted(eq(Collections.singletonList(1L)), any(Instant.class));
+        verify(repository, never()).delete(book);
+        assertThat(isbnIndex.contains(book.getIsbn())).isFalse();
+        verify(searchIndex).remove(1L);
+        verify(outbox).appendAll(BookChange.Type.DELETED, Collections.singletonList(book));
+    }
+
+    @Test
+    @DisplayName("Should delete only the books that exist")
+    public void deleteByIdsTest() {
+        Book book = createValidBook();
+        book.setId(1L);
+        when(repository.findAllForDelete(Arrays.asList(1L, 2L))).thenReturn(Collections.singletonList(book));
+
+        List<Long> deleted = bookService.deleteByIds(Arrays.asList(1L, 2L, 1L));
+
+        assertThat(deleted).containsExactly(1L);
+        verify(repository).markDeleted(eq(Collections.singletonList(1L)), any(Instant.class));
+        verify(searchIndex, never()).remove(2L);
+    }
+
+    @Test
+    @DisplayName("Should not delete a book without ID")
+    public void deleteInvalidBookTest() {
+        Book book = createValidBook();
+
+        Throwable exception = catchThrowable(() -> bookService.delete(book));
+
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+        verify(repository, never()).markDeleted(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should import only books with unknown ISBN")
+    public void importBooksTest() {
+        Book first = createValidBook();
+        Book repeated = createValidBook();
+        Book existing = Book.builder()
+                .title("Outro livro")
+                .author("Ciclano")
+                .isbn("456456")
+                .build();
+
+        isbnIndex.reserve(existing.getIsbn());
+        when(repository.findExistingIsbns(Collections.singletonList("456456")))
+                .thenReturn(Collections.singletonList("456456"));
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        BookImportResult result = bookService.importBooks(Arrays.asList(first, repeated, existing));
+
+        assertThat(result.getImported()).containsExactly(first);
+        assertThat(result.getDuplicatedIsbns()).containsExactly("123123", "456456");
+        verify(outbox).appendAll(BookChange.Type.CREATED, Collections.singletonList(first));
+    }
+
+    @Test
+    @DisplayName("Should export and detach every book")
+    public void exportBooksTest() {
+        Book book = createValidBook();
+        when(repository.streamAll()).thenReturn(Stream.of(book));
+
+        List<Book> exported = new ArrayList<>();
+        bookService.exportBooks(exported::add);
+
+        assertThat(exported).containsExactly(book);
+        verify(repository).detach(book);
+    }
+
+    @Test
+    @DisplayName("Should load books by ids in chunks of distinct ids")
+    public void getByIdsTest() {
+        List<Long> ids = LongStream.rangeClosed(1, 1200).boxed().collect(Collectors.toList());
+        ids.add(1L);
+        when(repository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Long> chunk = invocation.getArgument(0);
+            return chunk.stream()
+                    .filter(id -> id % 2 == 0)
+                    .map(id -> Book.builder().id(id).build())
+                    .collect(Collectors.toList());
+        });
+
+        Map<Long, Book> books = bookService.getByIds(ids);
+
+        assertThat(books).hasSize(600).containsKeys(2L, 1200L).doesNotContainKey(1L);
+        verify(repository, times(3)).findAllById(anyList());
+    }
+
     private Book createValidBook() {
         return Book.builder()
                 .title("As aventuras")
@@ -0,0 +1,198 @@
+package in.gilsondev.libraryapi.service;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.service.impl.CachingBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingBookServiceTest {
+    BookService delegate;
+    SimpleMeterRegistry meterRegistry;
+    BookService bookService;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(BookService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        bookService = new CachingBookService(delegate, meterRegistry, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Should load a book only once")
+    public void shouldServeRepeatedLookupsFromCache() {
+        when(delegate.getById(1L)).thenReturn(Optional.of(createValidBook()));
+
+        assertThat(bookService.getById(1L)).isPresent();
+        assertThat(bookService.getById(1L)).isPresent();
+
+        verify(delegate, times(1)).getById(1L);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not let callers change the cached book")
+    public void shouldReturnCopies() {
+        when(delegate.getById(1L)).thenReturn(Optional.of(createValidBook()));
+
+        bookService.getById(1L).get().setTitle("Alterado");
+
+        assertThat(bookService.getById(1L).get().getTitle()).isEqualTo("As aventuras");
+    }
+
+    @Test
+    @DisplayName("Should serve cached books and load the others with one call")
+    public void shouldLoadOnlyMissingBooks() {
+        Book cached = createValidBook();
+        Book loaded = cached.toBuilder().id(2L).build();
+        when(delegate.getById(1L)).thenReturn(Optional.of(cached));
+        when(delegate.getByIds(Arrays.asList(2L, 3L))).thenReturn(Collections.singletonMap(2L, loaded));
+        bookService.getById(1L);
+
+        Map<Long, Book> books = bookService.getByIds(Arrays.asList(1L, 2L, 3L));
+
+        assertThat(books).containsOnlyKeys(1L, 2L);
+        assertThat(bookService.getById(2L)).contains(loaded);
+        verify(delegate, never()).getById(2L);
+    }
+
+    @Test
+    @DisplayName("Should not cache a bulk load that raced with a write")
+    public void shouldNotCacheBulkLoadRacingWrite() {
+        Book book = createValidBook();
+        when(delegate.getByIds(anyCollection())).thenAnswer(invocation -> {
+            bookService.delete(book);
+            return Collections.singletonMap(1L, book);
+        });
+        when(delegate.getById(1L)).thenReturn(Optional.empty());
+
+        assertThat(bookService.getByIds(Collections.singletonList(1L))).containsOnlyKeys(1L);
+        assertThat(bookService.getById(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should answer the version from the cached book")
+    public void shouldServeVersionFromCachedBook() {
+        Book book = createValidBook();
+        book.setVersion(3L);
+        when(delegate.getById(1L)).thenReturn(Optional.of(book));
+        bookService.getById(1L);
+
+        assertThat(bookService.getVersion(1L)).contains(new BookVersion(3L, null));
+        verify(delegate, never()).getVersion(1L);
+    }
+
+    @Test
+    @DisplayName("Should cache versions until the book is written")
+    public void shouldCacheVersionsUntilWrite() {
+        Book book = createValidBook();
+        when(delegate.getVersion(1L)).thenReturn(Optional.of(new BookVersion(3L, Instant.EPOCH)));
+        when(delegate.update(book)).thenReturn(book);
+
+        bookService.getVersion(1L);
+        bookService.getVersion(1L);
+        verify(delegate, times(1)).getVersion(1L);
+
+        bookService.update(book);
+        bookService.getVersion(1L);
+        verify(delegate, times(2)).getVersion(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache missing books")
+    public void shouldNotCacheMisses() {
+        when(delegate.getById(1L)).thenReturn(Optional.empty());
+
+        assertThat(bookService.getById(1L)).isEmpty();
+        assertThat(bookService.getById(1L)).isEmpty();
+
+        verify(delegate, times(2)).getById(1L);
+    }
+
+    @Test
+    @DisplayName("Should reload a book after it is updated")
+    public void shouldInvalidateOnUpdate() {
+        Book book = createValidBook();
+        Book updated = book.toBuilder().title("Novo titulo").build();
+        when(delegate.getById(1L)).thenReturn(Optional.of(book), Optional.of(updated));
+        when(delegate.update(updated)).thenReturn(updated);
+
+        bookService.getById(1L);
+        bookService.update(updated);
+
+        assertThat(bookService.getById(1L).get().getTitle()).isEqualTo("Novo titulo");
+    }
+
+    @Test
+    @DisplayName("Should not resurrect a book deleted while it was being loaded")
+    public void shouldNotResurrectDeletedBook() throws Exception {
+        Book book = createValidBook();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch deleted = new CountDownLatch(1);
+        when(delegate.getById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            deleted.await(5, TimeUnit.SECONDS);
+            return Optional.of(book);
+        }).thenReturn(Optional.empty());
+
+        CompletableFuture<Optional<Book>> staleRead = CompletableFuture.supplyAsync(() -> bookService.getById(1L));
+        loading.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> delete = CompletableFuture.runAsync(() -> bookService.delete(book));
+        verify(delegate, timeout(5000)).delete(book);
+        deleted.countDown();
+
+        staleRead.get(5, TimeUnit.SECONDS);
+        delete.get(5, TimeUnit.SECONDS);
+
+        assertThat(bookService.getById(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should invalidate the changes of other instances and not cache older versions")
+    public void shouldHonourRemoteVersionStamps() {
+        CachingBookService cachingBookService = (CachingBookService) bookService;
+        Book stale = createValidBook().toBuilder().version(1L).build();
+        Book current = stale.toBuilder().title("Novo titulo").version(2L).build();
+        when(delegate.getById(1L)).thenReturn(Optional.of(stale), Optional.of(stale), Optional.of(current));
+        bookService.getById(1L);
+
+        cachingBookService.onBookChanged(new BookChangedEvent(1L, 2L, true));
+
+        // A replica still answering the previous version.
+        assertThat(bookService.getById(1L).get().getVersion()).isEqualTo(1L);
+        assertThat(bookService.getById(1L).get().getVersion()).isEqualTo(2L);
+        assertThat(bookService.getById(1L).get().getVersion()).isEqualTo(2L);
+        verify(delegate, times(3)).getById(1L);
+    }
+
+    private Book createValidBook() {
+        return Book.builder()
+                .id(1L)
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("123123")
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package in.gilsondev.libraryapi.service.index;
+
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IsbnIndexTest {
+    BookRepository repository;
+    IsbnIndex isbnIndex;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(BookRepository.class);
+        isbnIndex = new IsbnIndex(repository);
+    }
+
+    @Test
+    @DisplayName("Should reserve an ISBN only once")
+    public void reserveTest() {
+        assertThat(isbnIndex.reserve("9780306406157")).isTrue();
+        assertThat(isbnIndex.reserve("9780306406157")).isFalse();
+        assertThat(isbnIndex.contains("9780306406157")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should tell apart ISBNs that only differ by leading zeros or check digit")
+    public void packingTest() {
+        assertThat(IsbnIndex.pack("0123")).isNotEqualTo(IsbnIndex.pack("123"));
+        assertThat(IsbnIndex.pack("080442957X")).isNotEqualTo(IsbnIndex.pack("0804429570"));
+        assertThat(IsbnIndex.pack("978-0306406157")).isZero();
+
+        for (String isbn : Arrays.asList("0123", "123", "080442957X", "978-0306406157", "abc")) {
+            assertThat(isbnIndex.reserve(isbn)).as(isbn).isTrue();
+        }
+        assertThat(isbnIndex.size()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should accept an ISBN again after it is released")
+    public void releaseTest() {
+        isbnIndex.reserve("9780306406157");
+        isbnIndex.reserve("978-0306406157");
+
+        isbnIndex.release("9780306406157");
+        isbnIndex.release("978-0306406157");
+
+        assertThat(isbnIndex.contains("9780306406157")).isFalse();
+        assertThat(isbnIndex.contains("978-0306406157")).isFalse();
+        assertThat(isbnIndex.reserve("9780306406157")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should load every registered ISBN page by page")
+    public void warmUpTest() {
+        List<BookSummary> firstPage = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            firstPage.add(new BookSummary(id, "Livro", "Autor", String.valueOf(9780000000000L + id)));
+        }
+        List<BookSummary> lastPage = Arrays.asList(new BookSummary(5001L, "Livro", "Autor", "abc"));
+        when(repository.findSummaries(any(BookFilter.class), eq(0L), anyInt())).thenReturn(firstPage);
+        when(repository.findSummaries(any(BookFilter.class), eq(5000L), anyInt())).thenReturn(lastPage);
+
+        isbnIndex.afterSingletonsInstantiated();
+
+        assertThat(isbnIndex.size()).isEqualTo(5001);
+        assertThat(isbnIndex.contains("9780000000001")).isTrue();
+        assertThat(isbnIndex.contains("abc")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should let a single thread win the reservation of an ISBN")
+    public void concurrentReserveTest() throws Exception {
+        int threads = 8;
+        int isbns = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int won = 0;
+                for (long i = 0; i < isbns; i++) {
+                    if (isbnIndex.reserve(String.valueOf(9780000000000L + i))) {
+                        won++;
+                    }
+                }
+                return won;
+            }));
+        }
+        start.countDown();
+
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(total).isEqualTo(isbns);
+        assertThat(isbnIndex.size()).isEqualTo(isbns);
+    }
+}
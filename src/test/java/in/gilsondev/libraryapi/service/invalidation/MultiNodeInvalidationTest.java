@@ -0,0 +1,122 @@
+package in.gilsondev.libraryapi.service.invalidation;
+
+import in.gilsondev.libraryapi.LibraryApiApplication;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs several instances of the application in this JVM, sharing one in-memory
+ * database, and checks that a write on one of them is seen by the next read on
+ * any other, through their caches.
+ */
+public class MultiNodeInvalidationTest {
+    private final String database = "jdbc:h2:mem:nodes-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        // The first node creates the schema and drops it when it stops last.
+        startNode("library", "create-drop");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            nodes.get(i).close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read every update made on another node")
+    public void noStaleReadsAfterUpdates() {
+        BookService first = bookService(nodes.get(0));
+        BookService second = bookService(startNode("library", "none"));
+        BookService third = bookService(startNode("library", "none"));
+        Long id = first.save(createBook()).getId();
+
+        for (int i = 0; i < 50; i++) {
+            BookService writer = i % 2 == 0 ? first : second;
+            assertThat(third.getById(id)).isPresent();
+            assertThat(second.getById(id)).isPresent();
+
+            Book book = writer.getById(id).get();
+            book.setTitle("Titulo " + i);
+            Long version = writer.update(book).getVersion();
+
+            for (BookService reader : new BookService[]{first, second, third}) {
+                Book read = reader.getById(id).get();
+                assertThat(read.getVersion()).isEqualTo(version);
+                assertThat(read.getTitle()).isEqualTo("Titulo " + i);
+                assertThat(reader.getVersion(id).get().getVersion()).isEqualTo(version);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should not find on another node a book deleted on one")
+    public void noStaleReadsAfterDelete() {
+        BookService first = bookService(nodes.get(0));
+        BookService second = bookService(startNode("library", "none"));
+        Book book = first.save(createBook());
+        assertThat(second.getById(book.getId())).isPresent();
+        assertThat(second.getVersion(book.getId())).isPresent();
+
+        first.delete(book);
+
+        assertThat(second.getById(book.getId())).isEmpty();
+        assertThat(second.getVersion(book.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should detect stale reads between nodes that do not share a channel")
+    public void staleReadsWithoutBus() {
+        BookService first = bookService(nodes.get(0));
+        BookService second = bookService(startNode("elsewhere", "none"));
+        Long id = first.save(createBook()).getId();
+        assertThat(second.getById(id)).isPresent();
+
+        Book book = first.getById(id).get();
+        book.setTitle("Novo titulo");
+        first.update(book);
+
+        assertThat(second.getById(id).get().getTitle()).isEqualTo("As aventuras");
+    }
+
+    private ConfigurableApplicationContext startNode(String channel, String ddlAuto) {
+        ConfigurableApplicationContext node = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=" + database,
+                        "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "--spring.jmx.enabled=false",
+                        "--library.invalidation.transport=loopback",
+                        "--library.invalidation.channel=" + channel + "-" + database);
+        nodes.add(node);
+        return node;
+    }
+
+    private BookService bookService(ConfigurableApplicationContext node) {
+        return node.getBean(BookService.class);
+    }
+
+    private Book createBook() {
+        return Book.builder()
+                .title("As aventuras")
+                .author("Fulano")
+                .isbn("9780306406157")
+                .build();
+    }
+}
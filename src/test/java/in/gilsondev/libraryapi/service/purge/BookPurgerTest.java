@@ -0,0 +1,81 @@
+package in.gilsondev.libraryapi.service.purge;
+
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookPurgerTest {
+    private final BookRepository repository = mock(BookRepository.class);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should purge batch after batch until one is not full")
+    public void purgeUntilDone() {
+        List<Number> full = Arrays.asList(1L, 2L);
+        List<Number> last = Arrays.<Number>asList(3L);
+        when(repository.findDeletedIds(any(Pageable.class))).thenReturn(full, last);
+        when(repository.purgeDeleted(anyList())).thenReturn(2, 1);
+
+        long purged = purger("").purge();
+
+        assertThat(purged).isEqualTo(3);
+        verify(repository).purgeDeleted(Arrays.asList(1L, 2L));
+        verify(repository).purgeDeleted(Arrays.asList(3L));
+        assertThat(registry.counter("book.purged").count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should not purge while requests wait for a connection")
+    public void skipWhenBusy() {
+        AtomicInteger pending = new AtomicInteger(1);
+        registry.gauge("hikaricp.connections.pending", pending);
+
+        assertThat(purger("").purge()).isZero();
+        verify(repository, never()).findDeletedIds(any(Pageable.class));
+
+        pending.set(0);
+        when(repository.findDeletedIds(any(Pageable.class))).thenReturn(Arrays.<Number>asList(1L));
+        when(repository.purgeDeleted(anyList())).thenReturn(1);
+        assertThat(purger("").purge()).isEqualTo(1);
+        verify(repository, times(1)).purgeDeleted(anyList());
+    }
+
+    @Test
+    @DisplayName("Should purge only inside the window, which may span midnight")
+    public void window() {
+        BookPurger day = purger("09:00-17:00");
+        assertThat(day.inWindow(LocalTime.of(9, 0))).isTrue();
+        assertThat(day.inWindow(LocalTime.of(16, 59))).isTrue();
+        assertThat(day.inWindow(LocalTime.of(17, 0))).isFalse();
+        assertThat(day.inWindow(LocalTime.of(3, 0))).isFalse();
+
+        BookPurger night = purger("22:00 - 04:30");
+        assertThat(night.inWindow(LocalTime.of(23, 0))).isTrue();
+        assertThat(night.inWindow(LocalTime.of(2, 0))).isTrue();
+        assertThat(night.inWindow(LocalTime.of(12, 0))).isFalse();
+
+        assertThat(purger("").inWindow(LocalTime.of(12, 0))).isTrue();
+    }
+
+    private BookPurger purger(String window) {
+        return new BookPurger(repository, registry, false, Duration.ofMinutes(1), 2, Duration.ZERO, window);
+    }
+}
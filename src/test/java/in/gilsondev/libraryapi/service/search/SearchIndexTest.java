@@ -0,0 +1,160 @@
+package in.gilsondev.libraryapi.service.search;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SearchIndexTest {
+    BookRepository repository;
+    List<BookSummary> database;
+    List<BookSummary> recentlyUpdated;
+    SearchIndex searchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        database = new ArrayList<>();
+        recentlyUpdated = new ArrayList<>();
+        database.add(new BookSummary(1L, "O Alienista", "Machado de Assis", "1"));
+        database.add(new BookSummary(2L, "Dom Casmurro", "Machado de Assis", "2"));
+        database.add(new BookSummary(3L, "Memórias Póstumas de Brás Cubas", "Machado de Assis", "3"));
+        database.add(new BookSummary(4L, "Vidas Secas", "Graciliano Ramos", "4"));
+
+        repository = mock(BookRepository.class);
+        when(repository.count()).thenAnswer(invocation -> (long) database.size());
+        when(repository.findSummaries(any(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            BookFilter filter = invocation.getArgument(0);
+            long afterId = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            List<BookSummary> books = filter.getUpdatedSince() == null ? database : recentlyUpdated;
+            return books.stream()
+                    .filter(book -> book.getId() > afterId)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (searchIndex != null) {
+            searchIndex.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should match every word regardless of case and accents")
+    public void searchTest() {
+        searchIndex = open("");
+
+        assertThat(searchIndex.size()).isEqualTo(4);
+        assertThat(searchIndex.search("MEMORIAS bras", 10)).containsExactly(3L);
+        assertThat(searchIndex.search("machado", 10)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(searchIndex.search("casmurro machado", 10)).containsExactly(2L);
+        assertThat(searchIndex.search("casmurro ramos", 10)).isEmpty();
+        assertThat(searchIndex.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should match words by prefix and with small typos")
+    public void expansionTest() {
+        searchIndex = open("");
+
+        assertThat(searchIndex.search("alien", 10)).containsExactly(1L);
+        assertThat(searchIndex.search("casmuro", 10)).containsExactly(2L);
+        assertThat(searchIndex.search("graciliamo vidas", 10)).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Should rank exact matches and title matches first")
+    public void rankingTest() {
+        database.add(new BookSummary(5L, "Ramos", "Fulano", "5"));
+        database.add(new BookSummary(6L, "Ramosa", "Fulano", "6"));
+        searchIndex = open("");
+
+        // A prefix of a title word still beats the same word in the author.
+        assertThat(searchIndex.search("ramos", 10)).containsExactly(5L, 6L, 4L);
+        assertThat(searchIndex.search("ramos", 1)).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Should follow books being created, updated and deleted")
+    public void changesTest() throws Exception {
+        searchIndex = open("");
+
+        searchIndex.index(Book.builder().id(5L).title("Quincas Borba").author("Machado de Assis").build());
+        assertThat(searchIndex.search("quincas", 10)).containsExactly(5L);
+
+        searchIndex.index(Book.builder().id(2L).title("Esaú e Jacó").author("Machado de Assis").build());
+        assertThat(searchIndex.search("casmurro", 10)).isEmpty();
+        assertThat(searchIndex.search("esau", 10)).containsExactly(2L);
+
+        searchIndex.flush();
+        searchIndex.remove(1L);
+        searchIndex.index(Book.builder().id(5L).title("Helena").author("Machado de Assis").build());
+
+        assertThat(searchIndex.search("alienista", 10)).isEmpty();
+        assertThat(searchIndex.search("quincas", 10)).isEmpty();
+        assertThat(searchIndex.search("machado", 10)).containsExactlyInAnyOrder(2L, 3L, 5L);
+        assertThat(searchIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should map the saved segment and catch up on recent changes at startup")
+    public void reloadTest(@TempDir Path directory) throws Exception {
+        searchIndex = open(directory.toString());
+        searchIndex.index(Book.builder().id(5L).title("Quincas Borba").author("Machado de Assis").build());
+        database.add(new BookSummary(5L, "Quincas Borba", "Machado de Assis", "5"));
+        searchIndex.destroy();
+
+        BookSummary updated = new BookSummary(4L, "Angústia", "Graciliano Ramos", "4");
+        database.set(3, updated);
+        recentlyUpdated.add(updated);
+        searchIndex = open(directory.toString());
+
+        assertThat(searchIndex.size()).isEqualTo(5);
+        assertThat(searchIndex.search("quincas", 10)).containsExactly(5L);
+        assertThat(searchIndex.search("angustia", 10)).containsExactly(4L);
+        assertThat(searchIndex.search("vidas", 10)).isEmpty();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should rebuild the index when books were deleted while it was closed")
+    public void rebuildTest(@TempDir Path directory) throws Exception {
+        searchIndex = open(directory.toString());
+        searchIndex.destroy();
+
+        database.remove(0);
+        searchIndex = open(directory.toString());
+
+        assertThat(searchIndex.size()).isEqualTo(3);
+        assertThat(searchIndex.search("alienista", 10)).isEmpty();
+    }
+
+    private SearchIndex open(String directory) {
+        SearchIndex index = new SearchIndex(repository, directory, 10000);
+        index.afterSingletonsInstantiated();
+        return index;
+    }
+}
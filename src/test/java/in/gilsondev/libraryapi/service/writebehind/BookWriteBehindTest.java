@@ -0,0 +1,125 @@
+package in.gilsondev.libraryapi.service.writebehind;
+
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookVersion;
+import in.gilsondev.libraryapi.model.repositories.BookRepository;
+import in.gilsondev.libraryapi.service.outbox.BookOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookWriteBehindTest {
+    @TempDir
+    Path directory;
+
+    BookRepository repository;
+    BookWriteBehind writeBehind;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(BookRepository.class);
+        when(repository.findVersion(1L)).thenReturn(Optional.of(new BookVersion(3L, Instant.EPOCH)));
+        when(repository.updateIfOlder(any(), anyLong())).thenReturn(1);
+        writeBehind = open();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        writeBehind.destroy();
+    }
+
+    @Test
+    @DisplayName("Should serve updates right away and write only the latest one")
+    public void coalesceTest() throws Exception {
+        Book first = writeBehind.update(book("Primeiro", 3L));
+        Book second = writeBehind.update(book("Segundo", first.getVersion()));
+
+        assertThat(second.getVersion()).isEqualTo(5L);
+        assertThat(writeBehind.get(1L)).get().extracting(Book::getTitle).isEqualTo("Segundo");
+        verify(repository, never()).updateIfOlder(any(), anyLong());
+
+        writeBehind.flush();
+
+        ArgumentCaptor<Book> written = ArgumentCaptor.forClass(Book.class);
+        verify(repository, times(1)).updateIfOlder(written.capture(), eq(3L));
+        assertThat(written.getValue().getTitle()).isEqualTo("Segundo");
+        assertThat(written.getValue().getVersion()).isEqualTo(5L);
+        assertThat(writeBehind.get(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject an update made on top of an old version")
+    public void conflictTest() {
+        writeBehind.update(book("Primeiro", 3L));
+
+        Throwable exception = catchThrowable(() -> writeBehind.update(book("Segundo", 3L)));
+
+        assertThat(exception).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(writeBehind.get(1L)).get().extracting(Book::getTitle).isEqualTo("Primeiro");
+    }
+
+    @Test
+    @DisplayName("Should apply at startup the updates logged before a crash")
+    public void recoveryTest() throws Exception {
+        Book first = writeBehind.update(book("Primeiro", 3L));
+        writeBehind.update(book("Segundo", first.getVersion()));
+
+        // A second instance over the same directory, as after a crash.
+        BookWriteBehind recovered = open();
+        recovered.destroy();
+
+        verify(repository).updateIfOlder(argThat(book -> book.getVersion() == 5L
+                && book.getTitle().equals("Segundo")), eq(3L));
+    }
+
+    @Test
+    @DisplayName("Should drop only the updates breaking a constraint")
+    public void constraintTest() throws Exception {
+        when(repository.findVersion(2L)).thenReturn(Optional.of(new BookVersion(0L, Instant.EPOCH)));
+        when(repository.updateIfOlder(argThat(book -> book != null && book.getId() == 2L), anyLong()))
+                .thenThrow(new DataIntegrityViolationException("uk_book_isbn"));
+        writeBehind.update(book("Primeiro", 3L));
+        writeBehind.update(book("Segundo", 0L).toBuilder().id(2L).build());
+
+        writeBehind.flush();
+
+        verify(repository, times(2)).updateIfOlder(argThat(book -> book.getId() == 1L), eq(3L));
+        assertThat(writeBehind.get(1L)).isEmpty();
+        assertThat(writeBehind.get(2L)).isEmpty();
+    }
+
+    private BookWriteBehind open() {
+        BookWriteBehind writeBehind = new BookWriteBehind(repository, mock(BookOutbox.class), mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), true, directory.toString(), Duration.ofHours(1));
+        writeBehind.afterSingletonsInstantiated();
+        return writeBehind;
+    }
+
+    private Book book(String title, Long version) {
+        return Book.builder().id(1L).title(title).author("Fulano").isbn("9780306406157").version(version).build();
+    }
+}
@@ -0,0 +1,103 @@
+package in.gilsondev.libraryapi.sharding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardRebalancerTest {
+    private final List<DataSource> dataSources = new ArrayList<>();
+    private final List<JdbcTemplate> databases = new ArrayList<>();
+    private final Shards twoShards = new Shards(2);
+    private final Shards threeShards = new Shards(3);
+
+    @BeforeEach
+    public void setUp() {
+        for (int shard = 0; shard < 3; shard++) {
+            DataSource dataSource = new DriverManagerDataSource(
+                    "jdbc:h2:mem:rebalance-" + shard + ";DB_CLOSE_DELAY=-1", "sa", "");
+            JdbcTemplate database = new JdbcTemplate(dataSource);
+            database.execute("create table book (id bigint primary key, author varchar(255),"
+                    + " isbn varchar(255), title varchar(255), updated_at timestamp, version bigint,"
+                    + " tombstone bigint default 0 not null, unique (isbn, tombstone))");
+            dataSources.add(dataSource);
+            databases.add(database);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        databases.forEach(database -> database.execute("drop table book"));
+        twoShards.destroy();
+        threeShards.destroy();
+    }
+
+    @Test
+    @DisplayName("Should move to a new shard only the books it takes over")
+    public void moveToNewShard() {
+        for (int i = 1; i <= 300; i++) {
+            String isbn = "rebalance-" + i;
+            long id = Shards.bookId(i, Shards.bucketOf(isbn));
+            databases.get(twoShards.shardOfId(id)).update(
+                    "insert into book (id, author, isbn, title, updated_at, version) values (?, ?, ?, ?, ?, ?)",
+                    id, "Fulano", isbn, "Livro " + i, Timestamp.from(Instant.now()), 0);
+        }
+        long[] before = {count(0), count(1)};
+
+        ShardRebalancer rebalancer = new ShardRebalancer(new ShardRoutingDataSource(dataSources), threeShards, 7);
+        long moved = rebalancer.rebalance();
+
+        assertThat(moved).isEqualTo(count(2)).isPositive();
+        assertThat(count(0) + count(1) + count(2)).isEqualTo(300);
+        assertThat(count(0)).isLessThan(before[0]);
+        assertThat(count(1)).isLessThan(before[1]);
+        for (int shard = 0; shard < 3; shard++) {
+            for (Long id : databases.get(shard).queryForList("select id from book", Long.class)) {
+                assertThat(threeShards.shardOfId(id)).isEqualTo(shard);
+            }
+        }
+        assertThat(rebalancer.rebalance()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should renumber and move the books stored before sharding was enabled")
+    public void renumberBooksStoredWithoutSharding() {
+        for (long id = 1; id <= 300; id++) {
+            databases.get(0).update(
+                    "insert into book (id, author, isbn, title, updated_at, version) values (?, ?, ?, ?, ?, ?)",
+                    id, "Fulano", "unsharded-" + id, "Livro " + id, Timestamp.from(Instant.now()), 0);
+        }
+
+        ShardRebalancer rebalancer = new ShardRebalancer(new ShardRoutingDataSource(dataSources), threeShards, 7);
+        rebalancer.rebalance();
+
+        assertThat(count(0) + count(1) + count(2)).isEqualTo(300);
+        assertThat(count(1)).isPositive();
+        assertThat(count(2)).isPositive();
+        for (int shard = 0; shard < 3; shard++) {
+            for (Map<String, Object> book : databases.get(shard).queryForList("select id, isbn from book")) {
+                long id = (Long) book.get("ID");
+                String isbn = (String) book.get("ISBN");
+                assertThat(threeShards.shardOfIsbn(isbn)).isEqualTo(shard);
+                assertThat(threeShards.shardOfId(id)).isEqualTo(shard);
+                assertThat(Shards.bucketOf(id)).isEqualTo(Shards.bucketOf(isbn));
+            }
+        }
+        assertThat(rebalancer.rebalance()).isZero();
+    }
+
+    private long count(int shard) {
+        return databases.get(shard).queryForObject("select count(*) from book", Long.class);
+    }
+}
@@ -0,0 +1,142 @@
+package in.gilsondev.libraryapi.sharding;
+
+import in.gilsondev.libraryapi.exception.BusinessException;
+import in.gilsondev.libraryapi.model.entities.Book;
+import in.gilsondev.libraryapi.model.projections.BookSummary;
+import in.gilsondev.libraryapi.model.repositories.BookFilter;
+import in.gilsondev.libraryapi.service.BookImportResult;
+import in.gilsondev.libraryapi.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Three embedded H2 databases stand for three shards.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ShardingTest.SHARD_0,
+        "library.sharding.enabled=true",
+        "library.sharding.urls=" + ShardingTest.SHARD_1 + "," + ShardingTest.SHARD_2
+})
+public class ShardingTest {
+    static final String SHARD_0 = "jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    static final String SHARD_1 = "jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    static final String SHARD_2 = "jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    Shards shards;
+
+    List<JdbcTemplate> databases;
+
+    @BeforeEach
+    public void setUp() {
+        databases = new ArrayList<>();
+        for (String url : Arrays.asList(SHARD_0, SHARD_1, SHARD_2)) {
+            JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+            database.update("delete from book");
+            databases.add(database);
+        }
+    }
+
+    @Test
+    @DisplayName("Should store each book on the shard of its ISBN and find it by id")
+    public void routeByIsbnTest() {
+        List<Book> saved = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            saved.add(bookService.save(createBook("route-" + i)));
+        }
+
+        for (Book book : saved) {
+            int shard = shards.shardOfIsbn(book.getIsbn());
+            assertThat(Shards.bucketOf(book.getId())).isEqualTo(Shards.bucketOf(book.getIsbn()));
+            assertThat(shards.shardOfId(book.getId())).isEqualTo(shard);
+            assertThat(databases.get(shard).queryForObject("select isbn from book where id = ?", String.class,
+                    book.getId())).isEqualTo(book.getIsbn());
+            assertThat(bookService.getById(book.getId())).hasValueSatisfying(found ->
+                    assertThat(found.getIsbn()).isEqualTo(book.getIsbn()));
+        }
+        for (JdbcTemplate database : databases) {
+            assertThat(database.queryForObject("select count(*) from book", Long.class)).isPositive();
+        }
+        assertThat(saved.stream().map(Book::getId).distinct().count()).isEqualTo(saved.size());
+    }
+
+    @Test
+    @DisplayName("Should give every shard its own range of sequence numbers")
+    public void partitionSequencesTest() {
+        for (int shard = 0; shard < databases.size(); shard++) {
+            long next = databases.get(shard).queryForObject("call next value for book_seq", Long.class);
+            assertThat(next).isGreaterThanOrEqualTo(Shards.sequenceStart(shard))
+                    .isLessThan(Shards.sequenceStart(shard + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject an ISBN stored on its shard")
+    public void duplicatedIsbnTest() {
+        bookService.save(createBook("duplicated"));
+
+        Throwable exception = catchThrowable(() -> bookService.save(createBook("duplicated")));
+
+        assertThat(exception).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    @DisplayName("Should gather pages, lookups, imports and exports from every shard")
+    public void scatterGatherTest() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            books.add(createBook("gather-" + i));
+        }
+        books.add(createBook("gather-0"));
+        BookImportResult result = bookService.importBooks(books);
+        assertThat(result.getImported()).hasSize(40);
+        assertThat(result.getDuplicatedIsbns()).containsExactly("gather-0");
+        List<Long> ids = result.getImported().stream().map(Book::getId).sorted().collect(Collectors.toList());
+
+        List<Long> paged = new ArrayList<>();
+        long afterId = 0;
+        List<BookSummary> page;
+        do {
+            page = bookService.findBooks(new BookFilter(), afterId, 7);
+            page.forEach(book -> paged.add(book.getId()));
+            afterId = page.isEmpty() ? afterId : page.get(page.size() - 1).getId();
+        } while (page.size() == 7);
+        assertThat(paged).isEqualTo(ids);
+
+        Map<Long, Book> found = bookService.getByIds(ids);
+        assertThat(found).containsOnlyKeys(ids);
+
+        List<Long> exported = new ArrayList<>();
+        bookService.exportBooks(book -> exported.add(book.getId()));
+        assertThat(exported).isEqualTo(ids);
+
+        bookService.delete(found.get(ids.get(0)));
+        assertThat(bookService.getById(ids.get(0))).isEmpty();
+    }
+
+    private static Book createBook(String isbn) {
+        return Book.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
+    }
+}